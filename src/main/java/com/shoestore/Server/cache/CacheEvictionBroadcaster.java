@@ -0,0 +1,51 @@
+package com.shoestore.Server.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Publishes L1 evictions on a Redis channel and applies the ones published by other nodes.
+ * Message format: {@code nodeId|cacheName|key}, with an empty key meaning "clear the cache".
+ */
+@Slf4j
+public class CacheEvictionBroadcaster implements MessageListener {
+
+    public static final String CHANNEL = "cache:evictions";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private BiConsumer<String, String> localEvictor = (cacheName, key) -> {
+    };
+
+    public CacheEvictionBroadcaster(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    void setLocalEvictor(BiConsumer<String, String> localEvictor) {
+        this.localEvictor = localEvictor;
+    }
+
+    void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + cacheName + "|" + (key == null ? "" : key));
+        } catch (RuntimeException e) {
+            log.warn("Could not broadcast eviction of cache '{}': {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        localEvictor.accept(parts[1], parts[2].isEmpty() ? null : parts[2]);
+        log.debug("Evicted '{}' key '{}' on request of node {}", parts[1], parts[2], parts[0]);
+    }
+}
@@ -0,0 +1,13 @@
+package com.shoestore.Server.cache;
+
+public final class CacheNames {
+    public static final String BRANDS = "brands";
+    public static final String BRAND = "brand";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY = "category";
+    public static final String SUPPLIERS = "suppliers";
+    public static final String SUPPLIER = "supplier";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,67 @@
+package com.shoestore.Server.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU map whose entries expire after a fixed time-to-live.
+ * Reference data is small and read-mostly, so a single monitor is enough here.
+ */
+class LocalCacheStore {
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    private final LongAdder evictions = new LongAdder();
+
+    LocalCacheStore(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+        return entry.value();
+    }
+
+    synchronized void put(String key, Object value) {
+        entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+    }
+
+    synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,161 @@
+package com.shoestore.Server.cache;
+
+import com.shoestore.Server.dto.response.CacheStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process L1 in front of a Redis L2. Reads fall through L1 -> L2 -> loader and fill the
+ * tiers on the way back; evictions are applied locally and broadcast so other nodes drop
+ * their L1 copy. If Redis is unreachable the cache keeps working on L1 alone. Concurrent misses on
+ * the same key share one load; loads of different keys never wait for each other.
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final LocalCacheStore local;
+    private final Cache remote;
+    private final CacheEvictionBroadcaster broadcaster;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TwoLevelCache(String name, LocalCacheStore local, Cache remote, CacheEvictionBroadcaster broadcaster) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = String.valueOf(key);
+        Object value = local.get(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        ValueWrapper wrapper = remoteGet(key);
+        if (wrapper != null && wrapper.get() != null) {
+            l2Hits.increment();
+            local.put(localKey, wrapper.get());
+            return wrapper.get();
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            // cùng key đang được nạp ở luồng khác: chờ kết quả đó thay vì nạp lại
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            value = local.get(String.valueOf(key));
+            if (value == null) {
+                value = valueLoader.call();
+                put(key, value);
+            }
+            mine.complete(value);
+            return (T) value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        local.put(String.valueOf(key), value);
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            log.warn("Redis cache '{}' unavailable on put: {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.remove(String.valueOf(key));
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            log.warn("Redis cache '{}' unavailable on evict: {}", name, e.getMessage());
+        }
+        broadcaster.publish(name, String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            log.warn("Redis cache '{}' unavailable on clear: {}", name, e.getMessage());
+        }
+        broadcaster.publish(name, null);
+    }
+
+    // Gọi khi nhận thông báo từ node khác: chỉ xoá L1, L2 đã được node gửi xoá
+    void evictLocal(String key) {
+        if (key == null) {
+            local.clear();
+        } else {
+            local.remove(key);
+        }
+    }
+
+    CacheStatsResponse stats() {
+        long hits = l1Hits.sum() + l2Hits.sum();
+        long total = hits + misses.sum();
+        return new CacheStatsResponse(name, l1Hits.sum(), l2Hits.sum(), misses.sum(),
+                total == 0 ? 0.0 : (double) hits / total, local.size(), local.evictions());
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            return remote.get(key);
+        } catch (RuntimeException e) {
+            log.warn("Redis cache '{}' unavailable on get: {}", name, e.getMessage());
+            return null;
+        }
+    }
+}
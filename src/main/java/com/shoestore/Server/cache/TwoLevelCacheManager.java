@@ -0,0 +1,52 @@
+package com.shoestore.Server.cache;
+
+import com.shoestore.Server.dto.response.CacheStatsResponse;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed set of {@link TwoLevelCache}s, one per entry of the spec map. Unknown cache names
+ * resolve to {@code null}, so a typo in {@code @Cacheable} fails fast instead of silently
+ * creating an unbounded cache.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    public record Spec(Duration localTtl, int localMaxSize) {
+    }
+
+    private final Map<String, TwoLevelCache> caches = new LinkedHashMap<>();
+
+    public TwoLevelCacheManager(Map<String, Spec> specs, RedisCacheManager redisCacheManager,
+                                CacheEvictionBroadcaster broadcaster) {
+        specs.forEach((name, spec) -> caches.put(name, new TwoLevelCache(name,
+                new LocalCacheStore(spec.localTtl(), spec.localMaxSize()),
+                redisCacheManager.getCache(name),
+                broadcaster)));
+        broadcaster.setLocalEvictor((name, key) -> {
+            TwoLevelCache cache = caches.get(name);
+            if (cache != null) cache.evictLocal(key);
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public List<CacheStatsResponse> stats() {
+        return caches.values().stream().map(TwoLevelCache::stats).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.shoestore.Server.config;
+
+import com.shoestore.Server.cache.CacheEvictionBroadcaster;
+import com.shoestore.Server.cache.CacheNames;
+import com.shoestore.Server.cache.TwoLevelCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${app.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${app.cache.local.max-size:500}")
+    private int localMaxSize;
+
+    @Value("${app.cache.ttl-seconds.brands:3600}")
+    private long brandsTtlSeconds;
+
+    @Value("${app.cache.ttl-seconds.categories:3600}")
+    private long categoriesTtlSeconds;
+
+    @Value("${app.cache.ttl-seconds.suppliers:3600}")
+    private long suppliersTtlSeconds;
+
+    @Bean
+    public CacheEvictionBroadcaster cacheEvictionBroadcaster(StringRedisTemplate stringRedisTemplate) {
+        return new CacheEvictionBroadcaster(stringRedisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheEvictionListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                        CacheEvictionBroadcaster broadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(broadcaster, new ChannelTopic(CacheEvictionBroadcaster.CHANNEL));
+        return container;
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory, CacheEvictionBroadcaster broadcaster) {
+        Map<String, Long> ttlSeconds = new LinkedHashMap<>();
+        ttlSeconds.put(CacheNames.BRANDS, brandsTtlSeconds);
+        ttlSeconds.put(CacheNames.BRAND, brandsTtlSeconds);
+        ttlSeconds.put(CacheNames.CATEGORIES, categoriesTtlSeconds);
+        ttlSeconds.put(CacheNames.CATEGORY, categoriesTtlSeconds);
+        ttlSeconds.put(CacheNames.SUPPLIERS, suppliersTtlSeconds);
+        ttlSeconds.put(CacheNames.SUPPLIER, suppliersTtlSeconds);
+
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith("cache:")
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+        Map<String, RedisCacheConfiguration> redisConfigs = new HashMap<>();
+        Map<String, TwoLevelCacheManager.Spec> specs = new LinkedHashMap<>();
+        ttlSeconds.forEach((name, ttl) -> {
+            redisConfigs.put(name, defaults.entryTtl(Duration.ofSeconds(ttl)));
+            // L1 không được sống lâu hơn L2
+            specs.put(name, new TwoLevelCacheManager.Spec(Duration.ofSeconds(Math.min(localTtlSeconds, ttl)), localMaxSize));
+        });
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(redisConfigs)
+                .build();
+        redisCacheManager.initializeCaches();
+        return new TwoLevelCacheManager(specs, redisCacheManager, broadcaster);
+    }
+}
@@ -0,0 +1,39 @@
+package com.shoestore.Server.controller;
+
+import com.shoestore.Server.cache.TwoLevelCacheManager;
+import com.shoestore.Server.dto.response.CacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@PreAuthorize("hasRole('SUPER_ADMIN')")
+@RequiredArgsConstructor
+public class AdminCacheController {
+    private final TwoLevelCacheManager cacheManager;
+
+    @GetMapping
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.stats());
+    }
+
+    // Dùng khi dữ liệu tham chiếu bị sửa trực tiếp trong DB; việc xoá được phát tới mọi node
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> clearCache(@PathVariable String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        cache.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,7 +1,6 @@
 package com.shoestore.Server.controller;
 
 import com.shoestore.Server.dto.response.PaginationResponse;
-import com.shoestore.Server.dto.response.SearchProductResponse;
 import com.shoestore.Server.service.CloudinaryService;
 import com.shoestore.Server.service.PaginationService;
 import com.shoestore.Server.service.ProductService;
@@ -45,10 +44,8 @@ public class CloudinaryController {
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "productId", required = false) String productId) {
         try {
-            PaginationResponse<SearchProductResponse> tmp = productService.getAllProducts(1, 12);
-
             String folder = "project_ShoeStore/ImageProduct/"
-                    + (productId != null && !productId.isEmpty() ? productId : tmp.getTotalElements() + 1);
+                    + (productId != null && !productId.isEmpty() ? productId : productService.countProducts() + 1);
             Map uploadResult = cloudinaryService.upload(file, folder);
             return ResponseEntity.ok(uploadResult);
         } catch (IOException e) {
@@ -198,7 +198,12 @@ public class OrderController {
     @GetMapping
     public ResponseEntity<?> getAllOrders(
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            int size = pageSize != null ? pageSize : Integer.parseInt(AppConstants.PAGE_SIZE);
+            return ResponseEntity.ok(orderService.getAllOrdersScrolled(cursor, size));
+        }
         if (page != null && pageSize != null) {
             PaginationResponse<OrderDTO> response = orderService.getAllOrdersPaged(page, pageSize);
             return ResponseEntity.ok(response);
@@ -216,11 +221,12 @@ public class OrderController {
             @RequestParam(defaultValue = AppConstants.PAGE_NUMBER) int page,
             @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int pageSize,
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) String mode
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) String cursor
     ) {
-        PaginationResponse<OrderResponse> result = orderService.filterOrders(
-                status, q, from, to, page, pageSize, sort, mode
-        );
+        PaginationResponse<OrderResponse> result = cursor != null
+                ? orderService.filterOrdersScrolled(status, q, from, to, cursor, pageSize, sort, mode)
+                : orderService.filterOrders(status, q, from, to, page, pageSize, sort, mode);
         return ResponseEntity.ok(result);
     }
 
@@ -6,12 +6,14 @@ import com.shoestore.Server.dto.response.ApiStatusResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
 import com.shoestore.Server.dto.response.SearchProductResponse;
 import com.shoestore.Server.dto.response.RestResponse;
+import com.shoestore.Server.service.ProductPageService;
 import com.shoestore.Server.service.ProductService;
 import com.shoestore.Server.utils.AppConstants;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,9 +22,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductPageService productPageService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductPageService productPageService) {
         this.productService = productService;
+        this.productPageService = productPageService;
     }
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable int id) {
@@ -30,6 +34,25 @@ public class ProductController {
         return productDTO != null ? ResponseEntity.ok(productDTO) : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/{id}/page")
+    public ResponseEntity<ProductPageResponse> getProductPage(
+            @PathVariable int id,
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int reviewPageSize,
+            WebRequest request) {
+        ProductPageResponse page = productPageService.getProductPage(id, reviewPageSize);
+        if (page == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = productPageService.computeETag(page);
+        if (etag == null) {
+            return ResponseEntity.ok(page);
+        }
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
     @GetMapping("/by-product-details-id/{id}")
     public ResponseEntity<ProductDTO> getProductsByProductDetails(@PathVariable int id) {
         ProductDTO productDTO = productService.getProductByProductDetailsId(id);
@@ -42,13 +65,11 @@ public class ProductController {
     }
     @GetMapping("/get-related/{id}")
     public ResponseEntity<?> getRelatedProducts(@PathVariable int id) {
-        ProductDTO product = productService.getProductById(id);
-        if (product == null) {
+        List<SearchProductResponse> relatedProducts = productService.getRelatedProducts(id);
+        if (relatedProducts == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new RestResponse<>(HttpStatus.NOT_FOUND.value(), "Product not found", null, null));
         }
-
-        List<SearchProductResponse> relatedProducts = productService.getRelatedProducts(id, product.getCategoryID(), product.getBrandID());
         return ResponseEntity.ok(relatedProducts);
     }
 
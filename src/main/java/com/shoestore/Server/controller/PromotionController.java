@@ -4,6 +4,7 @@ import com.shoestore.Server.dto.request.ProductDTO;
 import com.shoestore.Server.dto.request.PromotionDTO;
 import com.shoestore.Server.dto.response.ApiStatusResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceQuoteResponse;
 import com.shoestore.Server.dto.response.PromotionResponse;
 import com.shoestore.Server.dto.response.RestResponse;
 import com.shoestore.Server.enums.PromotionStatus;
@@ -125,4 +126,15 @@ public class PromotionController {
         ));
     }
 
+    @PostMapping("/price-quotes")
+    public ResponseEntity<RestResponse<List<PriceQuoteResponse>>> getPriceQuotes(@RequestBody List<Integer> productIds) {
+        List<PriceQuoteResponse> quotes = promotionService.getPriceQuotes(productIds);
+        return ResponseEntity.ok(new RestResponse<>(
+                ApiStatusResponse.SUCCESS.getCode(),
+                "Price quotes retrieved successfully",
+                null,
+                quotes
+        ));
+    }
+
 }
@@ -1,7 +1,10 @@
 package com.shoestore.Server.controller;
 
+import com.shoestore.Server.dto.response.FacetCountsResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceHistogramResponse;
 import com.shoestore.Server.dto.response.SearchProductResponse;
+import com.shoestore.Server.dto.response.SuggestionResponse;
 import com.shoestore.Server.service.BrandService;
 import com.shoestore.Server.service.CategoryService;
 import com.shoestore.Server.service.ProductService;
@@ -32,6 +35,38 @@ public class SearchController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<FacetCountsResponse> getFacetCounts(
+            @RequestParam(required = false) List<Integer> categoryIds,
+            @RequestParam(required = false) List<Integer> brandIds,
+            @RequestParam(required = false) List<Integer> supplierIds,
+            @RequestParam(required = false) List<String> colors,
+            @RequestParam(required = false) List<String> sizes,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String keyword) {
+        return ResponseEntity.ok(productService.getFacetCounts(
+                categoryIds, brandIds, supplierIds, colors, sizes, keyword, minPrice, maxPrice));
+    }
+
+    @GetMapping("/price-histogram")
+    public ResponseEntity<PriceHistogramResponse> getPriceHistogram(
+            @RequestParam(required = false) List<Integer> categoryIds,
+            @RequestParam(required = false) List<Integer> brandIds,
+            @RequestParam(required = false) List<String> colors,
+            @RequestParam(required = false) List<String> sizes,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "20") int buckets) {
+        return ResponseEntity.ok(productService.getPriceHistogram(categoryIds, brandIds, colors, sizes, keyword, buckets));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.getSuggestions(q, limit));
+    }
+
     @GetMapping("/all-products")
     public ResponseEntity<?> getAllProducts(
             @RequestParam(defaultValue = "1") Integer page,
@@ -64,16 +64,22 @@ public class UserController {
     @GetMapping("/customers")
     public ResponseEntity<PaginationResponse<UserResponse>> getCustomers(
             @RequestParam(defaultValue = AppConstants.PAGE_NUMBER) int page,
-            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int size) {
-        PaginationResponse<UserResponse> customers = userService.getUsersByRoleCustomer(page, size);
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int size,
+            @RequestParam(required = false) String cursor) {
+        PaginationResponse<UserResponse> customers = cursor != null
+                ? userService.getCustomersScrolled(cursor, size)
+                : userService.getUsersByRoleCustomer(page, size);
         return ResponseEntity.ok(customers);
     }
 
     @GetMapping
     public ResponseEntity<PaginationResponse<UserResponse>> findAllUsers(
             @RequestParam(defaultValue = AppConstants.PAGE_NUMBER) int page,
-            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int size) {
-        PaginationResponse<UserResponse> userResponses = userService.getAllUsers(page, size);
+            @RequestParam(defaultValue = AppConstants.PAGE_SIZE) int size,
+            @RequestParam(required = false) String cursor) {
+        PaginationResponse<UserResponse> userResponses = cursor != null
+                ? userService.getAllUsersScrolled(cursor, size)
+                : userService.getAllUsers(page, size);
         return ResponseEntity.ok(userResponses);
     }
 
@@ -1,9 +1,15 @@
 package com.shoestore.Server.controller;
 
+import com.shoestore.Server.dto.request.VoucherCampaignRequest;
 import com.shoestore.Server.dto.request.VoucherDTO;
+import com.shoestore.Server.dto.response.VoucherCampaignResponse;
+import com.shoestore.Server.service.VoucherCampaignService;
 import com.shoestore.Server.service.VoucherService;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -14,9 +20,11 @@ import java.util.List;
 public class VoucherController {
 
     private final VoucherService voucherService;
+    private final VoucherCampaignService voucherCampaignService;
 
-    public VoucherController(VoucherService voucherService) {
+    public VoucherController(VoucherService voucherService, VoucherCampaignService voucherCampaignService) {
         this.voucherService = voucherService;
+        this.voucherCampaignService = voucherCampaignService;
     }
 
     @GetMapping("/eligible")
@@ -46,6 +54,19 @@ public class VoucherController {
         return ResponseEntity.ok(created);
     }
 
+    @PostMapping("/campaigns")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<VoucherCampaignResponse> startCampaign(@Valid @RequestBody VoucherCampaignRequest request) {
+        VoucherCampaignResponse campaign = voucherCampaignService.startCampaign(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(campaign);
+    }
+
+    @GetMapping("/campaigns/{campaignId}")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<VoucherCampaignResponse> getCampaign(@PathVariable String campaignId) {
+        return ResponseEntity.ok(voucherCampaignService.getCampaign(campaignId));
+    }
+
     @GetMapping
     public ResponseEntity<List<VoucherDTO>> getAllVouchers() {
         List<VoucherDTO> vouchers = voucherService.getAllVouchers();
@@ -0,0 +1,49 @@
+package com.shoestore.Server.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class VoucherCampaignRequest {
+    @Min(value = 1, message = "Count must be at least 1")
+    @Max(value = 1_000_000, message = "Count must not exceed 1,000,000")
+    private int count;
+
+    @Pattern(regexp = "^[A-Z0-9]{0,12}$", message = "Prefix must be up to 12 upper-case letters or digits")
+    private String prefix = "";
+
+    @Min(value = 6, message = "Code length must be at least 6")
+    @Max(value = 20, message = "Code length must not exceed 20")
+    private int codeLength = 10;
+
+    @Size(max = 255, message = "Description must not exceed 255 characters")
+    @NotBlank(message = "Description cannot be blank")
+    private String description;
+
+    @NotNull(message = "Discount value cannot be null")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Discount value must be greater than 0")
+    private BigDecimal discountValue;
+
+    @NotBlank(message = "Discount type cannot be blank")
+    @Pattern(regexp = "^(PERCENT|FIXED)$", message = "Discount type must be either PERCENT or FIXED")
+    private String discountType;
+
+    @NotNull(message = "Minimum order value cannot be null")
+    @DecimalMin(value = "0.0", message = "Minimum order value cannot be negative")
+    private BigDecimal minOrderValue;
+
+    private Integer maxUses = 1;
+
+    private boolean freeShipping;
+
+    @NotNull(message = "Start date cannot be null")
+    private LocalDateTime startDate;
+
+    @NotNull(message = "End date cannot be null")
+    private LocalDateTime endDate;
+
+    private boolean status = true;
+}
@@ -0,0 +1,16 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String name;
+    private long l1Hits;
+    private long l2Hits;
+    private long misses;
+    private double hitRatio;
+    private int l1Size;
+    private long l1Evictions;
+}
@@ -0,0 +1,17 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class FacetCountsResponse {
+    private int totalElements;
+    private Map<Integer, Integer> categories;
+    private Map<Integer, Integer> brands;
+    private Map<Integer, Integer> suppliers;
+    private Map<String, Integer> colors;
+    private Map<String, Integer> sizes;
+}
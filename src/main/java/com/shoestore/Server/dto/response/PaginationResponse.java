@@ -1,6 +1,7 @@
 package com.shoestore.Server.dto.response;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,4 +16,12 @@ public class PaginationResponse<T> {
     private int totalPages;
     private int currentPage;
     private int pageSize;
+
+    // Chỉ có ở chế độ cursor (keyset); khi đó totalElements/totalPages = -1 vì không chạy COUNT(*)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public PaginationResponse(List<T> items, long totalElements, int totalPages, int currentPage, int pageSize) {
+        this(items, totalElements, totalPages, currentPage, pageSize, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PriceHistogramResponse {
+    private double minPrice;
+    private double maxPrice;
+    private int totalElements;
+    private List<Bucket> buckets;
+
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+        private double from;
+        private double to;
+        private int count;
+    }
+}
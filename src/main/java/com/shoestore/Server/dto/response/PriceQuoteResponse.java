@@ -0,0 +1,16 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PriceQuoteResponse {
+    private int productID;
+    private BigDecimal originalPrice;
+    private BigDecimal finalPrice;
+    private List<PromotionResponse> appliedPromotions;
+}
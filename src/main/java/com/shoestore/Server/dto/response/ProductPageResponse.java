@@ -0,0 +1,16 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPageResponse {
+    private OverviewProductResponse overview;
+    private RatingSummaryResponse rating;
+    private PaginationResponse<ReviewResponse> reviews;
+    private List<PromotionResponse> appliedPromotions;
+    private List<SearchProductResponse> relatedProducts;
+}
@@ -0,0 +1,13 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductPriceResponse {
+    private int productID;
+    private double price;
+    private double discountPrice;
+    private PromotionResponse promotion;
+}
@@ -0,0 +1,16 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RatingSummaryResponse {
+    private double averageRating;
+    private int ratingCount;
+    private int star1Count;
+    private int star2Count;
+    private int star3Count;
+    private int star4Count;
+    private int star5Count;
+}
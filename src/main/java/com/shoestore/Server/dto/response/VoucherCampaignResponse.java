@@ -0,0 +1,18 @@
+package com.shoestore.Server.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class VoucherCampaignResponse {
+    private String campaignId;
+    private String status;
+    private int requested;
+    private int generated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+}
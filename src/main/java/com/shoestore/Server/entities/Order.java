@@ -14,20 +14,24 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "Orders")
+@Table(name = "Orders", indexes = {
+        @Index(name = "idx_orders_orderdate_id", columnList = "orderDate, orderID"),
+        @Index(name = "idx_orders_total_id", columnList = "total, orderID")
+})
 @ToString
 public class Order extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "orderID")
     private int orderID;
+    @Column(nullable = false)
     private LocalDate orderDate;
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
     private double total;
     private double feeShip;
     private String code;
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "voucherID", nullable = true)
     private Voucher voucher;
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
@@ -47,7 +51,7 @@ public class Order extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
     private double voucherDiscount;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "userID")
     private User user;
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL)
@@ -56,4 +60,11 @@ public class Order extends BaseEntity {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<OrderStatusHistory> statusHistory;
 
+    // orderDate là khóa keyset của danh sách đơn nên không được null
+    @PrePersist
+    void defaultOrderDate() {
+        if (orderDate == null) {
+            orderDate = LocalDate.now();
+        }
+    }
 }
@@ -17,7 +17,7 @@ public class OrderDetail extends BaseEntity{
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     @JoinColumn(name = "orderID")
     private Order order;
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "productDetailID")
     private ProductDetail productDetail;
     @ManyToOne(fetch = FetchType.LAZY)
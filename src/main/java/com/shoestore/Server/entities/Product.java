@@ -9,9 +9,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.util.List;
 
-@Table
+@Table(indexes = @Index(name = "idx_product_effectiveprice_id", columnList = "effectivePrice, productID"))
 @Entity
 @Getter
 @Setter
@@ -36,18 +38,23 @@ public class Product extends BaseEntity {
     @DecimalMin(value = "0", inclusive = false, message = "Price must be greater than 0")
     private double price;
 
+    // Giá sau khuyến mãi, được tính lại hàng loạt mỗi khi giá hoặc khuyến mãi thay đổi
+    @Column(name = "effectivePrice", nullable = false)
+    @ColumnDefault("0")
+    private double effectivePrice;
+
     @Enumerated (EnumType.STRING)
     private ProductStatus status;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "brandID")
     private Brand brand;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoryID")
     private Category category;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "supplierID")
     private Supplier supplier;
 
@@ -55,7 +62,7 @@ public class Product extends BaseEntity {
     @JsonManagedReference("productDetailsReference")
     private List<ProductDetail> productDetails;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "promotionID", nullable = true)
     @JsonIgnore
     private Promotion promotion;
@@ -64,4 +71,36 @@ public class Product extends BaseEntity {
     @JsonIgnore
     private List<Review> reviews;
 
+    @Column(name = "ratingSum", nullable = false)
+    @ColumnDefault("0")
+    private int ratingSum;
+
+    @Column(name = "ratingCount", nullable = false)
+    @ColumnDefault("0")
+    private int ratingCount;
+
+    @Column(name = "star1Count", nullable = false)
+    @ColumnDefault("0")
+    private int star1Count;
+
+    @Column(name = "star2Count", nullable = false)
+    @ColumnDefault("0")
+    private int star2Count;
+
+    @Column(name = "star3Count", nullable = false)
+    @ColumnDefault("0")
+    private int star3Count;
+
+    @Column(name = "star4Count", nullable = false)
+    @ColumnDefault("0")
+    private int star4Count;
+
+    @Column(name = "star5Count", nullable = false)
+    @ColumnDefault("0")
+    private int star5Count;
+
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
 }
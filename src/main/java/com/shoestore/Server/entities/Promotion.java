@@ -37,7 +37,7 @@ public class Promotion extends BaseEntity{
 
     private Integer getQuantity;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "gift_product_id")
     private Product giftProduct;
 
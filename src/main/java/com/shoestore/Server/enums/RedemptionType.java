@@ -0,0 +1,5 @@
+package com.shoestore.Server.enums;
+
+public enum RedemptionType {
+    VOUCHER, PROMOTION
+}
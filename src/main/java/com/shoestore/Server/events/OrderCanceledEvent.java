@@ -0,0 +1,10 @@
+package com.shoestore.Server.events;
+
+import java.util.Set;
+
+/**
+ * @param voucherId    voucher used by the order, or {@code null}
+ * @param promotionIds promotions applied to the order's lines
+ */
+public record OrderCanceledEvent(int orderId, Integer voucherId, Set<Integer> promotionIds) {
+}
@@ -0,0 +1,4 @@
+package com.shoestore.Server.events;
+
+public record OrderDeliveredEvent(int orderId) {
+}
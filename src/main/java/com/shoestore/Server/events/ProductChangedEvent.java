@@ -0,0 +1,11 @@
+package com.shoestore.Server.events;
+
+public record ProductChangedEvent(int productId, boolean deleted) {
+    public static ProductChangedEvent updated(int productId) {
+        return new ProductChangedEvent(productId, false);
+    }
+
+    public static ProductChangedEvent removed(int productId) {
+        return new ProductChangedEvent(productId, true);
+    }
+}
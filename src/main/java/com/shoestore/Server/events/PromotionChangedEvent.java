@@ -0,0 +1,9 @@
+package com.shoestore.Server.events;
+
+import java.util.Set;
+
+public record PromotionChangedEvent(Set<Integer> promotionIds) {
+    public static PromotionChangedEvent of(int promotionId) {
+        return new PromotionChangedEvent(Set.of(promotionId));
+    }
+}
@@ -0,0 +1,9 @@
+package com.shoestore.Server.events;
+
+import java.util.Set;
+
+public record VoucherChangedEvent(Set<Integer> voucherIds) {
+    public static VoucherChangedEvent of(int voucherId) {
+        return new VoucherChangedEvent(Set.of(voucherId));
+    }
+}
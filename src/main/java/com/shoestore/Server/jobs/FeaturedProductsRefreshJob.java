@@ -0,0 +1,40 @@
+package com.shoestore.Server.jobs;
+
+import com.shoestore.Server.events.OrderDeliveredEvent;
+import com.shoestore.Server.search.FeaturedProductLists;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Refreshes the best-seller / new-arrival lists every {@code refresh-ms}, or at the next
+ * check after an order is delivered. Bursts of deliveries collapse into a single refresh.
+ */
+@Component
+@RequiredArgsConstructor
+public class FeaturedProductsRefreshJob {
+    private final FeaturedProductLists featuredProductLists;
+
+    @Value("${app.featured-products.refresh-ms:900000}")
+    private long refreshMs;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderDelivered(OrderDeliveredEvent event) {
+        featuredProductLists.markStale();
+    }
+
+    @Scheduled(fixedDelayString = "${app.featured-products.check-interval-ms:60000}")
+    public void refreshIfNeeded() {
+        Instant refreshedAt = featuredProductLists.refreshedAt();
+        boolean expired = refreshedAt == null
+                || Duration.between(refreshedAt, Instant.now()).toMillis() >= refreshMs;
+        if (expired || featuredProductLists.isStale()) {
+            featuredProductLists.refresh();
+        }
+    }
+}
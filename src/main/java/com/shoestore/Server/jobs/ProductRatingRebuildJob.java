@@ -0,0 +1,41 @@
+package com.shoestore.Server.jobs;
+
+import com.shoestore.Server.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Backfills the rating aggregates stored on Product from the Review table at startup whenever
+ * they disagree with the reviews (e.g. right after ddl-auto added the columns as 0). The rebuild
+ * recomputes every aggregate, so running it again is harmless. Runs before the search index is
+ * built; can be switched off with app.jobs.rating-rebuild.enabled=false.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.jobs.rating-rebuild.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductRatingRebuildJob {
+
+    private final ProductRepository productRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void rebuildRatingAggregates() {
+        long stale = productRepository.countProductsWithStaleRatings();
+        if (stale == 0) {
+            log.info("Rating aggregates are up to date");
+            return;
+        }
+        log.info("{} products have stale rating aggregates, rebuilding", stale);
+        int updated = productRepository.rebuildRatingAggregates();
+        log.info("Rebuilt rating aggregates for {} products", updated);
+    }
+}
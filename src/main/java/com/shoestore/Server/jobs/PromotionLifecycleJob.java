@@ -0,0 +1,83 @@
+package com.shoestore.Server.jobs;
+
+import com.shoestore.Server.events.PromotionChangedEvent;
+import com.shoestore.Server.service.PromotionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flips promotion status UPCOMING -> ACTIVE -> EXPIRED at the start/end instants. The next
+ * instant of every live promotion waits in a {@link DelayQueue}; each tick drains what is due
+ * and transitions it in one batch. Admin edits re-enqueue the promotion for the next tick, and
+ * stale queue entries are harmless because the transition is recomputed from the stored dates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromotionLifecycleJob {
+    private final PromotionService promotionService;
+
+    private final DelayQueue<PendingTransition> queue = new DelayQueue<>();
+
+    private record PendingTransition(int promotionId, long dueAtMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((PendingTransition) other).dueAtMillis);
+        }
+    }
+
+    // Bắt kịp các mốc đã trôi qua khi ứng dụng không chạy
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAll() {
+        Map<Integer, LocalDateTime> next = promotionService.transitionStatuses(null);
+        next.forEach(this::schedule);
+        log.info("Promotion lifecycle: {} pending transitions", next.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        long now = System.currentTimeMillis();
+        event.promotionIds().forEach(id -> queue.add(new PendingTransition(id, now)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.promotions.transition-check-ms:1000}")
+    public void transitionDue() {
+        Set<Integer> due = new HashSet<>();
+        for (PendingTransition transition = queue.poll(); transition != null; transition = queue.poll()) {
+            due.add(transition.promotionId());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            promotionService.transitionStatuses(due).forEach(this::schedule);
+        } catch (RuntimeException e) {
+            log.error("Promotion status transition failed for {}, retrying on next tick", due, e);
+            long now = System.currentTimeMillis();
+            due.forEach(id -> queue.add(new PendingTransition(id, now)));
+        }
+    }
+
+    private void schedule(int promotionId, LocalDateTime at) {
+        queue.add(new PendingTransition(promotionId, at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.shoestore.Server.jobs;
+
+import com.shoestore.Server.service.RedemptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Writes confirmed voucher/promotion usage from Redis back to MySQL, one batch per
+ * transaction. Counters of a failed batch are put back and retried on the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedemptionReconcileJob {
+    private final RedemptionService redemptionService;
+
+    @Value("${app.redemption.reconcile-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.redemption.reconcile-ms:30000}")
+    public void reconcile() {
+        Map<RedemptionService.Counter, Long> usage;
+        while (!(usage = redemptionService.pollPendingUsage(batchSize)).isEmpty()) {
+            try {
+                redemptionService.persistUsage(usage);
+                log.debug("Reconciled usage of {} counters", usage.size());
+            } catch (RuntimeException e) {
+                log.error("Usage reconciliation failed, retrying on next run", e);
+                redemptionService.markPending(usage.keySet());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.shoestore.Server.jobs;
+
+import com.shoestore.Server.search.ProductSearchIndex;
+import com.shoestore.Server.search.RelatedProductsGraph;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically rebuilds the related-products graph from the in-memory search index as a safety
+ * net; the first build is done by {@code ProductIndexSynchronizer} once the index is loaded, and
+ * between runs the graph is maintained incrementally.
+ */
+@Component
+@RequiredArgsConstructor
+public class RelatedProductsGraphJob {
+    private final ProductSearchIndex productSearchIndex;
+    private final RelatedProductsGraph relatedProductsGraph;
+
+    @Scheduled(initialDelayString = "${app.jobs.related-products.refresh-ms:21600000}",
+            fixedDelayString = "${app.jobs.related-products.refresh-ms:21600000}")
+    public void rebuild() {
+        if (!relatedProductsGraph.isReady()) {
+            // chỉ dựng từ index đã nạp xong; lần dựng đầu do ProductIndexSynchronizer thực hiện
+            return;
+        }
+        relatedProductsGraph.rebuild(productSearchIndex.documents());
+    }
+}
@@ -8,5 +8,9 @@ import org.mapstruct.Mapping;
 @Mapper(componentModel = "spring")
 public interface CategoryMapper {
     CategoryDTO toDto(Category entity);
+
+    // Bản được cache: không kèm danh sách sản phẩm vốn thay đổi theo tồn kho/giá/đánh giá
+    @Mapping(target = "products", ignore = true)
+    CategoryDTO toSummaryDto(Category entity);
     Category toEntity(CategoryDTO dto);
 }
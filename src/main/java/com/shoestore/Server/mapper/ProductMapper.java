@@ -5,6 +5,7 @@ import com.shoestore.Server.dto.response.SearchProductResponse;
 import com.shoestore.Server.entities.Product;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 import java.util.List;
 
@@ -20,6 +21,12 @@ public interface ProductMapper {
     @Mapping(source = "supplierID", target = "supplier.supplierID")
     Product toEntity(ProductDTO productDTO);
     List<SearchProductResponse> toListProductSearchResponse(List<Product> products);
+    @Mapping(source = "averageRating", target = "rating", qualifiedByName = "toHalfStar")
     SearchProductResponse toProductSearchResponse(Product products);
     List<ProductDTO> toDto(List<Product> products);
+
+    @Named("toHalfStar")
+    default double toHalfStar(double rating) {
+        return Math.round(rating * 2) / 2.0;
+    }
 }
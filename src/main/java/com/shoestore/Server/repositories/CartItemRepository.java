@@ -4,6 +4,7 @@ import com.shoestore.Server.entities.CartItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +19,9 @@ public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
   List<CartItem> findCartItemsByCartId(@Param("cartId") int cartId);
   @Query("SELECT ci FROM CartItem ci WHERE ci.cart.cartID = :cartId AND ci.productDetail.productDetailID = :productDetailId")
   Optional<CartItem> findByCartIdAndProductDetailId(@Param("cartId") int cartId, @Param("productDetailId") int productDetailId);
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE CartItem ci SET ci.quantity = ci.quantity + :delta WHERE ci.cart.cartID = :cartId AND ci.productDetail.productDetailID = :productDetailId")
+  int incrementQuantity(@Param("cartId") int cartId, @Param("productDetailId") int productDetailId, @Param("delta") int delta);
 
 }
 
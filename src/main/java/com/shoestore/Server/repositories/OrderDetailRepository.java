@@ -10,6 +10,9 @@ import java.util.List;
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Integer> {
     List<OrderDetail> findByOrder_OrderID(int id);
 
+    @Query("SELECT DISTINCT od.promotion.promotionID FROM OrderDetail od WHERE od.order.orderID = :orderId")
+    List<Integer> findPromotionIdsByOrderId(int orderId);
+
     @Query("SELECT COALESCE(SUM(od.quantity), 0) FROM OrderDetail od WHERE od.productDetail.product.productID = :productId")
     int getTotalSoldByProductId(int productId);
 }
@@ -7,6 +7,8 @@ import com.shoestore.Server.enums.OrderStatus;
 import com.shoestore.Server.enums.PaymentMethod;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -18,8 +20,16 @@ import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Integer>, JpaSpecificationExecutor<Order> {
+    // Các quan hệ OneToOne phía mappedBy (payment, receipt, user.cart) không lazy được nên phải join ngay trong câu truy vấn
+    @EntityGraph(attributePaths = {"user", "user.cart", "voucher", "payment", "receipt"})
+    Page<Order> findAll(Specification<Order> spec, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "user.cart", "voucher", "payment", "receipt", "orderDetails", "orderDetails.review"})
     List<Order> findByUser_UserID(int userID);
 
+    @EntityGraph(attributePaths = {"user", "orderDetails", "orderDetails.productDetail"})
+    Optional<Order> findWithDetailsByOrderID(int orderID);
+
     Order findByCode(String code);
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.user.userID = :userId")
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +23,10 @@ public interface ProductDetailRepository extends JpaRepository<ProductDetail,Int
             @Param("size") Size size
     );
 
+    @Query("SELECT DISTINCT pd FROM ProductDetail pd JOIN FETCH pd.product p LEFT JOIN FETCH p.productDetails " +
+            "WHERE pd.productDetailID IN :productDetailIds")
+    List<ProductDetail> findWithProductByIdIn(@Param("productDetailIds") Collection<Integer> productDetailIds);
+
 }
 
 
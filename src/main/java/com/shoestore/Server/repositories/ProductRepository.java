@@ -8,12 +8,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product> {
@@ -23,6 +26,24 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
     @Query("SELECT od.productDetail.product FROM OrderDetail od WHERE od.orderDetailID = :orderDetailId")
     Product findProductByOrderDetailId(int orderDetailId);
 
+    @Query(value = "SELECT p.productID FROM Product p", countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<Integer> findAllProductIds(Pageable pageable);
+
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.productDetails")
+    List<Product> findAllWithDetails();
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.productDetails WHERE p.productID = :productId")
+    Optional<Product> findWithDetailsByProductID(@Param("productId") int productId);
+
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.productDetails WHERE p.productID IN :productIds")
+    List<Product> findAllWithDetailsByIdIn(@Param("productIds") Collection<Integer> productIds);
+
+    @Query("SELECT p.productID FROM Product p WHERE p.promotion.promotionID = :promotionId")
+    List<Integer> findIdsByPromotionId(@Param("promotionId") int promotionId);
+
+    @Query("SELECT p.productID FROM Product p WHERE p.promotion.promotionID IN :promotionIds")
+    List<Integer> findIdsByPromotionIdIn(@Param("promotionIds") Collection<Integer> promotionIds);
+
     List<Product> findTop10ByCategory_CategoryIDAndProductIDNot(int categoryId, int productId);
 
     List<Product> findTop10ByBrand_BrandIDAndProductIDNot(int brandId, int productId);
@@ -35,9 +56,15 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
             "JOIN product p ON pd.productID = p.productID " +
             "GROUP BY p.productID, p.productName, p.description, p.price, p.createdAt " +
             "ORDER BY SUM(od.quantity) DESC " +
-            "LIMIT 10",
+            "LIMIT :limit",
             nativeQuery = true)
-    List<Object[]> findTopSellingProducts();
+    List<Object[]> findTopSellingProducts(@Param("limit") int limit);
+
+    @Query(value = "SELECT pd.productID, SUM(od.quantity) FROM orderdetail od " +
+            "JOIN productdetail pd ON od.productDetailID = pd.productDetailID " +
+            "GROUP BY pd.productID",
+            nativeQuery = true)
+    List<Object[]> findSoldQuantityPerProduct();
 
     @Query(value = "SELECT p.productID, p.productName, p.description, CAST(p.price AS DOUBLE) as price, " +
             "0 as totalQuantity, 0 as viewCount, p.createdAt, " +
@@ -47,9 +74,9 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
             "WHERE p.createdAt >= DATE_SUB(CURDATE(), INTERVAL 1 MONTH) " +
             "GROUP BY p.productID, p.productName, p.description, p.price, p.createdAt " +
             "ORDER BY p.createdAt DESC " +
-            "LIMIT 10",
+            "LIMIT :limit",
             nativeQuery = true)
-    List<Object[]> findNewArrivals();
+    List<Object[]> findNewArrivals(@Param("limit") int limit);
 
 
     @Query(
@@ -64,14 +91,13 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
                         0.0,
                         0.0,
                         pd.stockQuantity,
-                        COALESCE(AVG(r.rating),0.0)
+                        CASE WHEN p.ratingCount = 0 THEN 0.0 ELSE p.ratingSum * 1.0 / p.ratingCount END
                       )
                       FROM OrderDetail od
                       JOIN od.productDetail pd
                       JOIN pd.product p
-                      LEFT JOIN p.reviews r
                       WHERE od.order.orderDate BETWEEN :start AND :end
-                      GROUP BY p.productID, p.productName, pd.image, p.price, pd.stockQuantity
+                      GROUP BY p.productID, p.productName, pd.image, p.price, pd.stockQuantity, p.ratingSum, p.ratingCount
                       ORDER BY SUM(od.quantity * p.price) DESC
                     """,
             countQuery = """
@@ -113,4 +139,39 @@ public interface ProductRepository extends JpaRepository<Product, Integer>, JpaS
 
     @Query("SELECT COALESCE(SUM(pd.stockQuantity), 0) FROM ProductDetail pd WHERE pd.product.productID = :productId")
     int getTotalStockByProductId(int productId);
+
+    @Query("SELECT CASE WHEN p.ratingCount = 0 THEN 0.0 ELSE p.ratingSum * 1.0 / p.ratingCount END " +
+            "FROM Product p WHERE p.productID = :productId")
+    Optional<Double> getAverageRatingByProductId(@Param("productId") int productId);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingSum = p.ratingSum + :rating, " +
+            "p.ratingCount = p.ratingCount + 1, " +
+            "p.star1Count = p.star1Count + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.star2Count = p.star2Count + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.star3Count = p.star3Count + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.star4Count = p.star4Count + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.star5Count = p.star5Count + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE p.productID = :productId")
+    int addRating(@Param("productId") int productId, @Param("rating") int rating);
+
+    @Modifying
+    @Query(value = "UPDATE product p " +
+            "LEFT JOIN (SELECT r.productID, SUM(r.rating) AS ratingSum, COUNT(*) AS ratingCount, " +
+            "SUM(r.rating = 1) AS star1, SUM(r.rating = 2) AS star2, SUM(r.rating = 3) AS star3, " +
+            "SUM(r.rating = 4) AS star4, SUM(r.rating = 5) AS star5 " +
+            "FROM review r GROUP BY r.productID) agg ON agg.productID = p.productID " +
+            "SET p.ratingSum = COALESCE(agg.ratingSum, 0), p.ratingCount = COALESCE(agg.ratingCount, 0), " +
+            "p.star1Count = COALESCE(agg.star1, 0), p.star2Count = COALESCE(agg.star2, 0), " +
+            "p.star3Count = COALESCE(agg.star3, 0), p.star4Count = COALESCE(agg.star4, 0), " +
+            "p.star5Count = COALESCE(agg.star5, 0)",
+            nativeQuery = true)
+    int rebuildRatingAggregates();
+
+    // Sản phẩm có ratingCount lệch với số review thực tế (ví dụ cột vừa được ddl-auto thêm với giá trị 0)
+    @Query(value = "SELECT COUNT(*) FROM product p " +
+            "LEFT JOIN (SELECT r.productID, COUNT(*) AS ratingCount FROM review r GROUP BY r.productID) agg " +
+            "ON agg.productID = p.productID WHERE p.ratingCount <> COALESCE(agg.ratingCount, 0)",
+            nativeQuery = true)
+    long countProductsWithStaleRatings();
 }
@@ -7,11 +7,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,8 +22,43 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer>,
     @Query("SELECT p.promotion FROM Product p WHERE p.productID = :productId")
     Optional<Promotion> findPromotionByProductId(@Param("productId") int productId);
 
+    @Query("SELECT p.productID, p.price, pr.promotionID FROM Product p LEFT JOIN p.promotion pr " +
+            "WHERE p.productID IN :productIds")
+    List<Object[]> findPriceAndPromotionIdByProductIds(@Param("productIds") Collection<Integer> productIds);
+
+    @Query("SELECT p.productID, p.price, c.categoryID FROM Product p LEFT JOIN p.category c " +
+            "WHERE p.productID IN :productIds")
+    List<Object[]> findPriceAndCategoryIdByProductIds(@Param("productIds") Collection<Integer> productIds);
+
+    @Query("SELECT DISTINCT pr FROM Promotion pr LEFT JOIN FETCH pr.giftProduct LEFT JOIN FETCH pr.categories " +
+            "WHERE pr.promotionID IN :promotionIds")
+    List<Promotion> findWithCategoriesByIdIn(@Param("promotionIds") Collection<Integer> promotionIds);
+
+    @Query("SELECT DISTINCT pr FROM Promotion pr LEFT JOIN FETCH pr.applicableProducts " +
+            "WHERE pr.promotionID IN :promotionIds")
+    List<Promotion> findWithApplicableProductsByIdIn(@Param("promotionIds") Collection<Integer> promotionIds);
+
     long countByStatus(PromotionStatus status);
 
+    @Query("SELECT pr.promotionID FROM Promotion pr WHERE pr.status = :status")
+    List<Integer> findIdsByStatus(@Param("status") PromotionStatus status);
+
+    List<Promotion> findByStatus(PromotionStatus status);
+
+    @Query("SELECT pr.promotionID, pr.status, pr.startDate, pr.endDate FROM Promotion pr WHERE pr.promotionID IN :promotionIds")
+    List<Object[]> findScheduleByIdIn(@Param("promotionIds") Collection<Integer> promotionIds);
+
+    @Query("SELECT pr.promotionID, pr.status, pr.startDate, pr.endDate FROM Promotion pr WHERE pr.status <> :status")
+    List<Object[]> findScheduleByStatusNot(@Param("status") PromotionStatus status);
+
+    @Modifying
+    @Query("UPDATE Promotion pr SET pr.status = :status WHERE pr.promotionID IN :promotionIds")
+    int updateStatus(@Param("promotionIds") Collection<Integer> promotionIds, @Param("status") PromotionStatus status);
+
+    @Modifying
+    @Query("UPDATE Promotion pr SET pr.usageCount = :used WHERE pr.promotionID = :id AND (pr.usageCount IS NULL OR pr.usageCount < :used)")
+    int updateUsageCount(@Param("id") int id, @Param("used") int used);
+
     List<Promotion> findByStatusAndStartDateBeforeAndEndDateAfter(
             PromotionStatus status, LocalDateTime startDate, LocalDateTime endDate);
 
@@ -14,6 +14,7 @@ import java.util.Optional;
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
     List<Review> findReviewsByProduct_ProductID(int productID);
+    Page<Review> findByProduct_ProductID(int productID, Pageable pageable);
     Optional<Review> findByOrderDetail_OrderDetailID(int orderDetailID);
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.productID = :productId")
     Optional<Double> getAverageRatingByProductId(@Param("productId") int productId);
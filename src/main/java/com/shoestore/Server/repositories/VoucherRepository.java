@@ -3,6 +3,9 @@ package com.shoestore.Server.repositories;
 import com.shoestore.Server.entities.Voucher;
 import com.shoestore.Server.enums.CustomerGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,5 +18,12 @@ public interface VoucherRepository extends JpaRepository<Voucher, Integer> {
             LocalDateTime now2,
             CustomerGroup customerGroup
     );
+
+    List<Voucher> findByStatusTrueAndEndDateAfter(LocalDateTime now);
+
+    // Không bao giờ giảm số lượt đã dùng, kể cả khi Redis bị xóa dữ liệu
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = :used WHERE v.voucherID = :id AND (v.usedCount IS NULL OR v.usedCount < :used)")
+    int updateUsedCount(@Param("id") int id, @Param("used") int used);
 }
 
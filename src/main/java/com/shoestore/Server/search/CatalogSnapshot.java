@@ -0,0 +1,296 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.ProductDetailsResponse;
+import com.shoestore.Server.dto.response.PromotionResponse;
+import com.shoestore.Server.dto.response.SearchProductResponse;
+import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.ProductStatus;
+import com.shoestore.Server.enums.Size;
+
+import java.util.*;
+
+/**
+ * Immutable, versioned read model of the storefront catalog. Products are stored column-wise
+ * in parallel arrays ordered by product ID; variants are packed in a second set of columns and
+ * addressed through {@code variantOffsets} (variants of product {@code i} live in
+ * {@code [variantOffsets[i], variantOffsets[i + 1])}). Enums are stored as ordinals.
+ * A version that only replaces existing products shares the columns of its predecessor and
+ * keeps the replaced rows in a small {@code overrides} map, which readers consult first.
+ * Readers get a fresh DTO per call, so nothing handed out can alter the snapshot.
+ */
+public final class CatalogSnapshot {
+
+    private static final Color[] COLORS = Color.values();
+    private static final Size[] SIZES = Size.values();
+    private static final ProductStatus[] STATUSES = ProductStatus.values();
+
+    public record VariantEntry(int productDetailId, Color color, Size size, int stockQuantity,
+                               ProductStatus status, String image) {
+    }
+
+    public record ProductEntry(int productId, String productName, String description, ProductStatus status,
+                               double price, double discountPrice, int promotionId, double averageRating,
+                               List<VariantEntry> variants) {
+    }
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, List.of(), Map.of());
+
+    private final long version;
+    private final int[] productIds;
+    private final String[] names;
+    private final String[] descriptions;
+    private final byte[] statuses;
+    private final double[] prices;
+    private final double[] discountPrices;
+    private final int[] promotionIds;
+    private final float[] ratings;
+    private final int[] variantOffsets;
+    private final int[] variantIds;
+    private final byte[] variantColors;
+    private final byte[] variantSizes;
+    private final int[] variantStock;
+    private final byte[] variantStatuses;
+    private final String[] variantImages;
+    private final Map<Integer, PromotionResponse> promotions;
+    private final Map<Integer, ProductEntry> overrides;
+
+    /**
+     * @param entries products sorted by ID
+     */
+    CatalogSnapshot(long version, List<ProductEntry> entries, Map<Integer, PromotionResponse> promotions) {
+        int n = entries.size();
+        int variantCount = entries.stream().mapToInt(e -> e.variants().size()).sum();
+        this.version = version;
+        this.productIds = new int[n];
+        this.names = new String[n];
+        this.descriptions = new String[n];
+        this.statuses = new byte[n];
+        this.prices = new double[n];
+        this.discountPrices = new double[n];
+        this.promotionIds = new int[n];
+        this.ratings = new float[n];
+        this.variantOffsets = new int[n + 1];
+        this.variantIds = new int[variantCount];
+        this.variantColors = new byte[variantCount];
+        this.variantSizes = new byte[variantCount];
+        this.variantStock = new int[variantCount];
+        this.variantStatuses = new byte[variantCount];
+        this.variantImages = new String[variantCount];
+        this.promotions = Map.copyOf(promotions);
+        this.overrides = Map.of();
+
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            ProductEntry entry = entries.get(i);
+            productIds[i] = entry.productId();
+            names[i] = entry.productName();
+            descriptions[i] = entry.description();
+            statuses[i] = ordinal(entry.status());
+            prices[i] = entry.price();
+            discountPrices[i] = entry.discountPrice();
+            promotionIds[i] = entry.promotionId();
+            ratings[i] = (float) entry.averageRating();
+            variantOffsets[i] = v;
+            for (VariantEntry variant : entry.variants()) {
+                variantIds[v] = variant.productDetailId();
+                variantColors[v] = ordinal(variant.color());
+                variantSizes[v] = ordinal(variant.size());
+                variantStock[v] = variant.stockQuantity();
+                variantStatuses[v] = ordinal(variant.status());
+                variantImages[v] = variant.image();
+                v++;
+            }
+        }
+        variantOffsets[n] = v;
+    }
+
+    private CatalogSnapshot(long version, CatalogSnapshot base, Map<Integer, ProductEntry> overrides,
+                            Map<Integer, PromotionResponse> promotions) {
+        this.version = version;
+        this.productIds = base.productIds;
+        this.names = base.names;
+        this.descriptions = base.descriptions;
+        this.statuses = base.statuses;
+        this.prices = base.prices;
+        this.discountPrices = base.discountPrices;
+        this.promotionIds = base.promotionIds;
+        this.ratings = base.ratings;
+        this.variantOffsets = base.variantOffsets;
+        this.variantIds = base.variantIds;
+        this.variantColors = base.variantColors;
+        this.variantSizes = base.variantSizes;
+        this.variantStock = base.variantStock;
+        this.variantStatuses = base.variantStatuses;
+        this.variantImages = base.variantImages;
+        this.promotions = Map.copyOf(promotions);
+        this.overrides = Map.copyOf(overrides);
+    }
+
+    /**
+     * Next version with the given products (all already present) replaced; only the override
+     * map is copied, the columns are shared.
+     */
+    CatalogSnapshot withEntries(long version, Collection<ProductEntry> replaced, Map<Integer, PromotionResponse> promotions) {
+        Map<Integer, ProductEntry> merged = new HashMap<>(overrides);
+        replaced.forEach(e -> merged.put(e.productId(), e));
+        return new CatalogSnapshot(version, this, merged, promotions);
+    }
+
+    int overrideCount() {
+        return overrides.size();
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public boolean contains(int productId) {
+        return Arrays.binarySearch(productIds, productId) >= 0;
+    }
+
+    /**
+     * Product IDs of the {@code page}-th page in ID order.
+     */
+    public List<Integer> pageOfIds(int page, int pageSize) {
+        int from = Math.min(Math.max(page - 1, 0) * pageSize, productIds.length);
+        int to = Math.min(from + pageSize, productIds.length);
+        List<Integer> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(productIds[i]);
+        }
+        return ids;
+    }
+
+    public List<Integer> productIdsWithPromotion(int promotionId) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < promotionIds.length; i++) {
+            ProductEntry override = overrides.get(productIds[i]);
+            int current = override != null ? override.promotionId() : promotionIds[i];
+            if (current == promotionId) ids.add(productIds[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Storefront card for each known ID, in the given order; unknown IDs are skipped.
+     */
+    public List<SearchProductResponse> toSearchResponses(List<Integer> ids) {
+        List<SearchProductResponse> responses = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            int i = Arrays.binarySearch(productIds, id);
+            if (i < 0) continue;
+            ProductEntry override = overrides.get(id);
+            responses.add(override != null ? toSearchResponse(override) : toSearchResponse(i));
+        }
+        return responses;
+    }
+
+    public List<ProductDetailsResponse> variants(int productId) {
+        int i = Arrays.binarySearch(productIds, productId);
+        if (i < 0) return List.of();
+        ProductEntry override = overrides.get(productId);
+        return override != null ? toVariantResponses(override.variants()) : variantsAt(i);
+    }
+
+    ProductEntry entry(int productId) {
+        int i = Arrays.binarySearch(productIds, productId);
+        if (i < 0) return null;
+        ProductEntry override = overrides.get(productId);
+        if (override != null) return override;
+        List<VariantEntry> variants = new ArrayList<>();
+        for (int v = variantOffsets[i]; v < variantOffsets[i + 1]; v++) {
+            variants.add(new VariantEntry(variantIds[v], value(COLORS, variantColors[v]), value(SIZES, variantSizes[v]),
+                    variantStock[v], value(STATUSES, variantStatuses[v]), variantImages[v]));
+        }
+        return new ProductEntry(productIds[i], names[i], descriptions[i], value(STATUSES, statuses[i]), prices[i],
+                discountPrices[i], promotionIds[i], ratings[i], variants);
+    }
+
+    List<ProductEntry> entries() {
+        List<ProductEntry> entries = new ArrayList<>(productIds.length);
+        for (int id : productIds) {
+            entries.add(entry(id));
+        }
+        return entries;
+    }
+
+    Map<Integer, PromotionResponse> promotions() {
+        return promotions;
+    }
+
+    private SearchProductResponse toSearchResponse(int i) {
+        SearchProductResponse response = new SearchProductResponse();
+        response.setProductID(productIds[i]);
+        response.setProductName(names[i]);
+        response.setDescription(descriptions[i]);
+        response.setPrice(prices[i]);
+        ProductStatus status = value(STATUSES, statuses[i]);
+        response.setStatus(status != null ? status.name() : null);
+        response.setDiscountPrice(discountPrices[i]);
+        response.setRating(Math.round(ratings[i] * 2) / 2.0);
+        response.setPromotion(promotionIds[i] != 0 ? PromotionResponses.copyOf(promotions.get(promotionIds[i])) : null);
+        List<ProductDetailsResponse> variants = variantsAt(i);
+        response.setProductDetails(variants);
+        response.setImage(variants.isEmpty() ? null : variants.get(0).getImage());
+        return response;
+    }
+
+    private SearchProductResponse toSearchResponse(ProductEntry entry) {
+        SearchProductResponse response = new SearchProductResponse();
+        response.setProductID(entry.productId());
+        response.setProductName(entry.productName());
+        response.setDescription(entry.description());
+        response.setPrice(entry.price());
+        response.setStatus(entry.status() != null ? entry.status().name() : null);
+        response.setDiscountPrice(entry.discountPrice());
+        response.setRating(Math.round((float) entry.averageRating() * 2) / 2.0);
+        response.setPromotion(entry.promotionId() != 0 ? PromotionResponses.copyOf(promotions.get(entry.promotionId())) : null);
+        List<ProductDetailsResponse> variants = toVariantResponses(entry.variants());
+        response.setProductDetails(variants);
+        response.setImage(variants.isEmpty() ? null : variants.get(0).getImage());
+        return response;
+    }
+
+    private static List<ProductDetailsResponse> toVariantResponses(List<VariantEntry> entries) {
+        List<ProductDetailsResponse> variants = new ArrayList<>(entries.size());
+        for (VariantEntry entry : entries) {
+            ProductDetailsResponse variant = new ProductDetailsResponse();
+            variant.setProductDetailID(entry.productDetailId());
+            variant.setColor(entry.color());
+            variant.setSize(entry.size());
+            variant.setStockQuantity(entry.stockQuantity());
+            variant.setStatus(entry.status());
+            variant.setImage(entry.image());
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    private List<ProductDetailsResponse> variantsAt(int i) {
+        List<ProductDetailsResponse> variants = new ArrayList<>(variantOffsets[i + 1] - variantOffsets[i]);
+        for (int v = variantOffsets[i]; v < variantOffsets[i + 1]; v++) {
+            ProductDetailsResponse variant = new ProductDetailsResponse();
+            variant.setProductDetailID(variantIds[v]);
+            variant.setColor(value(COLORS, variantColors[v]));
+            variant.setSize(value(SIZES, variantSizes[v]));
+            variant.setStockQuantity(variantStock[v]);
+            variant.setStatus(value(STATUSES, variantStatuses[v]));
+            variant.setImage(variantImages[v]);
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    // -1 biểu diễn null
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static <E> E value(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
@@ -0,0 +1,135 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.ProductPriceResponse;
+import com.shoestore.Server.dto.response.PromotionResponse;
+import com.shoestore.Server.entities.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. Writers are serialized, build the next snapshot
+ * from the previous one and publish it with a single reference swap, so storefront reads
+ * never take a lock or open a Hibernate session. Replacing existing products (stock, rating,
+ * price changes) only copies the replaced entries; the columns are rebuilt when a product is
+ * added or removed, or once {@value #MAX_OVERRIDES} replacements have accumulated.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshotStore {
+    static final int MAX_OVERRIDES = 512;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public CatalogSnapshot current() {
+        return current.get();
+    }
+
+    public static CatalogSnapshot.ProductEntry entryOf(Product product, ProductPriceResponse price) {
+        List<CatalogSnapshot.VariantEntry> variants = product.getProductDetails() == null ? List.of()
+                : product.getProductDetails().stream()
+                .map(d -> new CatalogSnapshot.VariantEntry(d.getProductDetailID(), d.getColor(), d.getSize(),
+                        d.getStockQuantity(), d.getStatus(), d.getImage()))
+                .toList();
+        double discountPrice = price != null ? price.getDiscountPrice() : product.getPrice();
+        int promotionId = price != null && price.getPromotion() != null ? price.getPromotion().getPromotionID() : 0;
+        return new CatalogSnapshot.ProductEntry(product.getProductID(), product.getProductName(), product.getDescription(),
+                product.getStatus(), product.getPrice(), discountPrice, promotionId, product.getAverageRating(), variants);
+    }
+
+    public synchronized void rebuild(Collection<CatalogSnapshot.ProductEntry> entries, Collection<PromotionResponse> promotions) {
+        TreeMap<Integer, CatalogSnapshot.ProductEntry> byId = new TreeMap<>();
+        entries.forEach(e -> byId.put(e.productId(), e));
+        Map<Integer, PromotionResponse> promotionsById = new HashMap<>();
+        promotions.forEach(p -> promotionsById.put(p.getPromotionID(), p));
+        publish(byId, promotionsById);
+        ready = true;
+        log.info("Catalog snapshot v{} built with {} products", current.get().version(), byId.size());
+    }
+
+    public synchronized void put(CatalogSnapshot.ProductEntry entry, PromotionResponse promotion) {
+        if (!ready) {
+            return;
+        }
+        Map<Integer, PromotionResponse> promotions = new HashMap<>(current.get().promotions());
+        if (promotion != null) {
+            promotions.put(promotion.getPromotionID(), promotion);
+        }
+        if (current.get().contains(entry.productId())) {
+            replace(List.of(entry), promotions);
+            return;
+        }
+        TreeMap<Integer, CatalogSnapshot.ProductEntry> byId = entries();
+        byId.put(entry.productId(), entry);
+        publish(byId, promotions);
+    }
+
+    public synchronized void remove(int productId) {
+        if (!ready || !current.get().contains(productId)) {
+            return;
+        }
+        TreeMap<Integer, CatalogSnapshot.ProductEntry> byId = entries();
+        byId.remove(productId);
+        publish(byId, current.get().promotions());
+    }
+
+    /**
+     * Replaces the discount price and promotion of the given products in one new version.
+     */
+    public synchronized void reprice(Map<Integer, ProductPriceResponse> prices) {
+        if (!ready || prices.isEmpty()) {
+            return;
+        }
+        CatalogSnapshot snapshot = current.get();
+        Map<Integer, PromotionResponse> promotions = new HashMap<>(snapshot.promotions());
+        List<CatalogSnapshot.ProductEntry> replaced = new ArrayList<>();
+        prices.forEach((productId, price) -> {
+            CatalogSnapshot.ProductEntry e = snapshot.entry(productId);
+            if (e == null) return;
+            PromotionResponse promotion = price.getPromotion();
+            if (promotion != null) {
+                promotions.put(promotion.getPromotionID(), promotion);
+            }
+            replaced.add(new CatalogSnapshot.ProductEntry(e.productId(), e.productName(), e.description(), e.status(),
+                    e.price(), price.getDiscountPrice(), promotion != null ? promotion.getPromotionID() : 0,
+                    e.averageRating(), e.variants()));
+        });
+        if (!replaced.isEmpty()) {
+            replace(replaced, promotions);
+        }
+    }
+
+    // Chỉ chép các mục bị thay; đủ MAX_OVERRIDES mục thì dựng lại các cột một lần
+    private void replace(List<CatalogSnapshot.ProductEntry> replaced, Map<Integer, PromotionResponse> promotions) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot.overrideCount() + replaced.size() <= MAX_OVERRIDES) {
+            current.set(snapshot.withEntries(snapshot.version() + 1, replaced, promotions));
+            return;
+        }
+        TreeMap<Integer, CatalogSnapshot.ProductEntry> byId = entries();
+        replaced.forEach(e -> byId.put(e.productId(), e));
+        publish(byId, promotions);
+    }
+
+    private TreeMap<Integer, CatalogSnapshot.ProductEntry> entries() {
+        TreeMap<Integer, CatalogSnapshot.ProductEntry> byId = new TreeMap<>();
+        current.get().entries().forEach(e -> byId.put(e.productId(), e));
+        return byId;
+    }
+
+    private void publish(TreeMap<Integer, CatalogSnapshot.ProductEntry> byId, Map<Integer, PromotionResponse> promotions) {
+        // chỉ giữ lại các khuyến mãi còn được sản phẩm nào đó tham chiếu
+        Set<Integer> referenced = new HashSet<>();
+        byId.values().forEach(e -> referenced.add(e.promotionId()));
+        Map<Integer, PromotionResponse> kept = new HashMap<>(promotions);
+        kept.keySet().retainAll(referenced);
+        current.set(new CatalogSnapshot(current.get().version() + 1, new ArrayList<>(byId.values()), kept));
+    }
+}
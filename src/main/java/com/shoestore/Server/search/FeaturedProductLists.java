@@ -0,0 +1,94 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.FeaturedProductResponse;
+import com.shoestore.Server.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Materialized home-page lists (best sellers, new arrivals). Both are recomputed together
+ * and published as one immutable snapshot, so readers never see a half-refreshed pair.
+ * Refreshes are driven by {@code FeaturedProductsRefreshJob}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeaturedProductLists {
+
+    private record Snapshot(List<FeaturedProductResponse> bestSellers,
+                            List<FeaturedProductResponse> newArrivals,
+                            Instant refreshedAt) {
+    }
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.featured-products.size:10}")
+    private int size;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale;
+
+    public List<FeaturedProductResponse> bestSellers() {
+        return current().bestSellers();
+    }
+
+    public List<FeaturedProductResponse> newArrivals() {
+        return current().newArrivals();
+    }
+
+    public Instant refreshedAt() {
+        Snapshot current = snapshot;
+        return current != null ? current.refreshedAt() : null;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void markStale() {
+        stale = true;
+    }
+
+    public synchronized void refresh() {
+        stale = false;
+        List<FeaturedProductResponse> bestSellers = toResponses(productRepository.findTopSellingProducts(size));
+        List<FeaturedProductResponse> newArrivals = toResponses(productRepository.findNewArrivals(size));
+        snapshot = new Snapshot(bestSellers, newArrivals, Instant.now());
+        log.debug("Featured product lists refreshed: {} best sellers, {} new arrivals", bestSellers.size(), newArrivals.size());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // lần gọi đầu tiên trước khi job chạy
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static List<FeaturedProductResponse> toResponses(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new FeaturedProductResponse(
+                        (int) row[0],
+                        (String) row[1],
+                        (String) row[2],
+                        (double) row[3],
+                        (long) row[4],
+                        (long) row[5],
+                        row[6] != null ? ((Timestamp) row[6]).toLocalDateTime() : null,
+                        (String) row[7]
+                ))
+                .toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.FacetCountsResponse;
+import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * One bitmap of product IDs per brand, category, supplier, color and size.
+ * Facet counts are obtained by intersecting the bitmaps of the active filters
+ * ("disjunctive" faceting: a dimension's own selection is ignored when counting
+ * its values, so the sidebar still shows the alternatives).
+ * Product IDs are dense auto-increment keys, so a plain {@link BitSet} stays compact.
+ * Readers work on an immutable snapshot; writers copy the bitmaps they touch and swap it.
+ */
+@Slf4j
+@Component
+public class ProductFacetIndex {
+
+    private record Bitmaps(BitSet all,
+                           Map<Integer, BitSet> categories,
+                           Map<Integer, BitSet> brands,
+                           Map<Integer, BitSet> suppliers,
+                           Map<Color, BitSet> colors,
+                           Map<Size, BitSet> sizes) {
+
+        static Bitmaps empty() {
+            return new Bitmaps(new BitSet(), new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                    new EnumMap<>(Color.class), new EnumMap<>(Size.class));
+        }
+
+        Bitmaps copy() {
+            return new Bitmaps((BitSet) all.clone(), new HashMap<>(categories), new HashMap<>(brands),
+                    new HashMap<>(suppliers), new EnumMap<>(colors), new EnumMap<>(sizes));
+        }
+
+        void apply(ProductSearchDocument document, boolean set) {
+            int id = document.productId();
+            all.set(id, set);
+            flip(categories, document.categoryId(), id, set);
+            flip(brands, document.brandId(), id, set);
+            flip(suppliers, document.supplierId(), id, set);
+            document.colors().forEach(c -> flip(colors, c, id, set));
+            document.sizes().forEach(s -> flip(sizes, s, id, set));
+        }
+
+        private static <K> void flip(Map<K, BitSet> bitmaps, K key, int id, boolean set) {
+            bitmaps.compute(key, (k, bits) -> {
+                BitSet copy = bits == null ? new BitSet() : (BitSet) bits.clone();
+                copy.set(id, set);
+                return copy.isEmpty() ? null : copy;
+            });
+        }
+    }
+
+    private final Map<Integer, ProductSearchDocument> documents = new HashMap<>();
+    private volatile Bitmaps bitmaps = Bitmaps.empty();
+
+    public synchronized void rebuild(Collection<ProductSearchDocument> all) {
+        documents.clear();
+        Bitmaps next = Bitmaps.empty();
+        for (ProductSearchDocument document : all) {
+            documents.put(document.productId(), document);
+            next.apply(document, true);
+        }
+        bitmaps = next;
+        log.info("Product facet index rebuilt with {} products", documents.size());
+    }
+
+    public synchronized void put(ProductSearchDocument document) {
+        Bitmaps next = bitmaps.copy();
+        ProductSearchDocument previous = documents.put(document.productId(), document);
+        if (previous != null) {
+            next.apply(previous, false);
+        }
+        next.apply(document, true);
+        bitmaps = next;
+    }
+
+    public synchronized void remove(int productId) {
+        ProductSearchDocument previous = documents.remove(productId);
+        if (previous != null) {
+            Bitmaps next = bitmaps.copy();
+            next.apply(previous, false);
+            bitmaps = next;
+        }
+    }
+
+    /**
+     * @param base product IDs already narrowed by keyword/price, or {@code null} for the whole catalog
+     */
+    public FacetCountsResponse count(Set<Integer> base,
+                                     List<Integer> categoryIds,
+                                     List<Integer> brandIds,
+                                     List<Integer> supplierIds,
+                                     List<String> colors,
+                                     List<String> sizes) {
+        Bitmaps current = bitmaps;
+        BitSet scope = base == null ? current.all() : toBitSet(base);
+
+        BitSet categoryFilter = union(current.categories(), categoryIds);
+        BitSet brandFilter = union(current.brands(), brandIds);
+        BitSet supplierFilter = union(current.suppliers(), supplierIds);
+        BitSet colorFilter = colors == null || colors.isEmpty() ? null
+                : union(current.colors(), ProductSearchIndex.parseEnums(Color.class, colors));
+        BitSet sizeFilter = sizes == null || sizes.isEmpty() ? null
+                : union(current.sizes(), ProductSearchIndex.parseEnums(Size.class, sizes));
+
+        BitSet matched = intersect(scope, categoryFilter, brandFilter, supplierFilter, colorFilter, sizeFilter);
+
+        return new FacetCountsResponse(
+                matched.cardinality(),
+                counts(current.categories(), intersect(scope, brandFilter, supplierFilter, colorFilter, sizeFilter), Function.identity()),
+                counts(current.brands(), intersect(scope, categoryFilter, supplierFilter, colorFilter, sizeFilter), Function.identity()),
+                counts(current.suppliers(), intersect(scope, categoryFilter, brandFilter, colorFilter, sizeFilter), Function.identity()),
+                counts(current.colors(), intersect(scope, categoryFilter, brandFilter, supplierFilter, sizeFilter), Enum::name),
+                counts(current.sizes(), intersect(scope, categoryFilter, brandFilter, supplierFilter, colorFilter), Enum::name)
+        );
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> bitmaps, List<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (K key : keys) {
+            BitSet bits = bitmaps.get(key);
+            if (bits != null) result.or(bits);
+        }
+        return result;
+    }
+
+    private static BitSet intersect(BitSet scope, BitSet... filters) {
+        BitSet result = (BitSet) scope.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) result.and(filter);
+        }
+        return result;
+    }
+
+    private static <K, R> Map<R, Integer> counts(Map<K, BitSet> bitmaps, BitSet scope, Function<K, R> label) {
+        Map<R, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<K, BitSet> entry : bitmaps.entrySet()) {
+            BitSet hits = (BitSet) entry.getValue().clone();
+            hits.and(scope);
+            counts.put(label.apply(entry.getKey()), hits.cardinality());
+        }
+        return counts;
+    }
+
+    private static BitSet toBitSet(Set<Integer> ids) {
+        BitSet bits = new BitSet();
+        ids.forEach(bits::set);
+        return bits;
+    }
+}
@@ -0,0 +1,297 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.ProductPriceResponse;
+import com.shoestore.Server.dto.response.PromotionResponse;
+import com.shoestore.Server.entities.Brand;
+import com.shoestore.Server.entities.Category;
+import com.shoestore.Server.entities.Product;
+import com.shoestore.Server.entities.Promotion;
+import com.shoestore.Server.enums.PromotionStatus;
+import com.shoestore.Server.events.ProductChangedEvent;
+import com.shoestore.Server.events.PromotionChangedEvent;
+import com.shoestore.Server.mapper.PromotionMapper;
+import com.shoestore.Server.repositories.BrandRepository;
+import com.shoestore.Server.repositories.CategoryRepository;
+import com.shoestore.Server.repositories.ProductRepository;
+import com.shoestore.Server.repositories.PromotionRepository;
+import com.shoestore.Server.service.ProductService;
+import com.shoestore.Server.service.PromotionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the catalog and the active promotions into the in-memory structures at startup and keeps them
+ * current from {@link ProductChangedEvent}s and {@link PromotionChangedEvent}s, which are
+ * applied only once the writing transaction has committed. The same events keep
+ * {@code product.effectivePrice} in step with the discount price; only changed rows are written.
+ * <p>
+ * The updates run on a single background thread, in event order, so checkout and review requests
+ * only enqueue them. Pending changes of the same product are coalesced: the worker re-reads the
+ * product anyway, so one re-index covers every change queued before it started.
+ */
+@Slf4j
+@Component
+public class ProductIndexSynchronizer {
+    private static final int PRICE_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final RelatedProductsGraph relatedProductsGraph;
+    private final SuggestionIndex suggestionIndex;
+    private final ProductPriceColumn productPriceColumn;
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogSnapshotStore catalogSnapshotStore;
+    private final PromotionService promotionService;
+    private final PromotionRepository promotionRepository;
+    private final PromotionMapper promotionMapper;
+    private final PromotionApplicabilityIndex promotionApplicabilityIndex;
+    private final ProductService productService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor indexExecutor;
+    private final Map<Integer, ProductChangedEvent> pendingProducts = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public ProductIndexSynchronizer(ProductRepository productRepository, ProductSearchIndex productSearchIndex,
+                                    ProductFacetIndex productFacetIndex, RelatedProductsGraph relatedProductsGraph,
+                                    SuggestionIndex suggestionIndex, ProductPriceColumn productPriceColumn,
+                                    BrandRepository brandRepository, CategoryRepository categoryRepository,
+                                    CatalogSnapshotStore catalogSnapshotStore, PromotionService promotionService,
+                                    PromotionRepository promotionRepository, PromotionMapper promotionMapper,
+                                    PromotionApplicabilityIndex promotionApplicabilityIndex, ProductService productService,
+                                    PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.relatedProductsGraph = relatedProductsGraph;
+        this.suggestionIndex = suggestionIndex;
+        this.productPriceColumn = productPriceColumn;
+        this.brandRepository = brandRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogSnapshotStore = catalogSnapshotStore;
+        this.promotionService = promotionService;
+        this.promotionRepository = promotionRepository;
+        this.promotionMapper = promotionMapper;
+        this.promotionApplicabilityIndex = promotionApplicabilityIndex;
+        this.productService = productService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // một luồng duy nhất để các cập nhật được áp dụng đúng thứ tự sự kiện
+        this.indexExecutor = new ThreadPoolTaskExecutor();
+        this.indexExecutor.setCorePoolSize(1);
+        this.indexExecutor.setMaxPoolSize(1);
+        this.indexExecutor.setThreadNamePrefix("index-sync-");
+        this.indexExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<Product> products = productRepository.findAllWithDetails();
+        Map<Integer, ProductPriceResponse> prices = productPrices(products);
+        List<ProductSearchDocument> stored = products.stream()
+                .map(ProductSearchDocument::of)
+                .toList();
+        Map<Integer, Double> changed = changedEffectivePrices(stored, prices);
+        productService.updateEffectivePrices(changed);
+        List<ProductSearchDocument> documents = stored.stream()
+                .map(d -> changed.containsKey(d.productId()) ? d.withEffectivePrice(changed.get(d.productId())) : d)
+                .toList();
+        productSearchIndex.rebuild(documents);
+        relatedProductsGraph.rebuild(documents);
+        productFacetIndex.rebuild(documents);
+        productPriceColumn.rebuild(documents);
+        suggestionIndex.rebuild(suggestionEntries(documents));
+        rebuildCatalogSnapshot(products, prices);
+        rebuildPromotionIndex();
+        log.info("Stored effective prices for {} products", changed.size());
+    }
+
+    // Trạng thái do PromotionLifecycleJob chuyển đúng thời điểm, nên chỉ cần nạp các khuyến mãi ACTIVE
+    private void rebuildPromotionIndex() {
+        List<Integer> ids = promotionRepository.findIdsByStatus(PromotionStatus.ACTIVE);
+        List<Promotion> promotions = ids.isEmpty() ? List.of() : promotionRepository.findWithCategoriesByIdIn(ids);
+        if (!ids.isEmpty()) {
+            // cùng persistence context: nạp applicableProducts vào chính các entity ở trên
+            promotionRepository.findWithApplicableProductsByIdIn(ids);
+        }
+        Map<Integer, PromotionResponse> responses = new HashMap<>();
+        promotions.forEach(p -> responses.put(p.getPromotionID(), promotionMapper.toResponse(p)));
+        promotionApplicabilityIndex.rebuild(promotions, responses);
+    }
+
+    private Map<Integer, ProductPriceResponse> productPrices(List<Product> products) {
+        Map<Integer, ProductPriceResponse> prices = new HashMap<>();
+        List<Integer> productIds = products.stream().map(Product::getProductID).toList();
+        for (int from = 0; from < productIds.size(); from += PRICE_BATCH_SIZE) {
+            prices.putAll(promotionService.getProductPrices(productIds.subList(from, Math.min(from + PRICE_BATCH_SIZE, productIds.size()))));
+        }
+        return prices;
+    }
+
+    // Giá thực trả = giá sau khuyến mãi đang hiển thị; chỉ trả về các sản phẩm có giá khác với giá đã lưu
+    private static Map<Integer, Double> changedEffectivePrices(Collection<ProductSearchDocument> documents,
+                                                               Map<Integer, ProductPriceResponse> prices) {
+        Map<Integer, Double> changed = new HashMap<>();
+        for (ProductSearchDocument document : documents) {
+            ProductPriceResponse price = prices.get(document.productId());
+            double effectivePrice = price != null ? price.getDiscountPrice() : document.price();
+            if (effectivePrice != document.effectivePrice()) {
+                changed.put(document.productId(), effectivePrice);
+            }
+        }
+        return changed;
+    }
+
+    private void rebuildCatalogSnapshot(List<Product> products, Map<Integer, ProductPriceResponse> prices) {
+        List<CatalogSnapshot.ProductEntry> entries = products.stream()
+                .map(product -> CatalogSnapshotStore.entryOf(product, prices.get(product.getProductID())))
+                .toList();
+        List<PromotionResponse> promotions = prices.values().stream()
+                .map(ProductPriceResponse::getPromotion)
+                .filter(Objects::nonNull)
+                .toList();
+        catalogSnapshotStore.rebuild(entries, promotions);
+    }
+
+    // Độ phổ biến: sản phẩm = số lượng đã bán; thương hiệu/danh mục = tổng của các sản phẩm + số sản phẩm
+    private List<SuggestionIndex.Entry> suggestionEntries(List<ProductSearchDocument> documents) {
+        Map<Integer, Long> sold = new HashMap<>();
+        for (Object[] row : productRepository.findSoldQuantityPerProduct()) {
+            sold.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+        Map<Integer, Long> brandPopularity = new HashMap<>();
+        Map<Integer, Long> categoryPopularity = new HashMap<>();
+        List<SuggestionIndex.Entry> entries = new ArrayList<>();
+        for (ProductSearchDocument document : documents) {
+            long popularity = sold.getOrDefault(document.productId(), 0L);
+            entries.add(new SuggestionIndex.Entry(SuggestionIndex.PRODUCT, document.productId(), document.productName(), popularity));
+            brandPopularity.merge(document.brandId(), popularity + 1, Long::sum);
+            categoryPopularity.merge(document.categoryId(), popularity + 1, Long::sum);
+        }
+        for (Brand brand : brandRepository.findAll()) {
+            entries.add(new SuggestionIndex.Entry(SuggestionIndex.BRAND, brand.getBrandID(), brand.getName(),
+                    brandPopularity.getOrDefault(brand.getBrandID(), 0L)));
+        }
+        for (Category category : categoryRepository.findAll()) {
+            entries.add(new SuggestionIndex.Entry(SuggestionIndex.CATEGORY, category.getCategoryID(), category.getName(),
+                    categoryPopularity.getOrDefault(category.getCategoryID(), 0L)));
+        }
+        return entries;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        pendingProducts.put(event.productId(), event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexExecutor.execute(this::drainProductChanges);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        indexExecutor.execute(() -> {
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> reprice(event));
+            } catch (RuntimeException e) {
+                log.error("Failed to reprice products for Promotion IDs: {}", event.promotionIds(), e);
+            }
+        });
+    }
+
+    private void drainProductChanges() {
+        drainScheduled.set(false);
+        for (Integer productId : List.copyOf(pendingProducts.keySet())) {
+            ProductChangedEvent event = pendingProducts.remove(productId);
+            if (event == null) continue;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> reindex(event));
+            } catch (RuntimeException e) {
+                log.error("Failed to re-index Product ID: {}", productId, e);
+            }
+        }
+    }
+
+    private void reindex(ProductChangedEvent event) {
+        int productId = event.productId();
+        Optional<Product> product = event.deleted()
+                ? Optional.empty()
+                : productRepository.findWithDetailsByProductID(productId);
+        Optional<ProductSearchDocument> document = product.map(ProductSearchDocument::of);
+        if (document.isPresent()) {
+            Map<Integer, ProductPriceResponse> prices = promotionService.getProductPrices(List.of(productId));
+            ProductPriceResponse price = prices.get(productId);
+            Map<Integer, Double> changed = changedEffectivePrices(List.of(document.get()), prices);
+            if (!changed.isEmpty()) {
+                productService.updateEffectivePrices(changed);
+                document = Optional.of(document.get().withEffectivePrice(changed.get(productId)));
+            }
+            catalogSnapshotStore.put(CatalogSnapshotStore.entryOf(product.get(), price), price != null ? price.getPromotion() : null);
+            productSearchIndex.put(document.get());
+            productFacetIndex.put(document.get());
+            productPriceColumn.put(document.get());
+            relatedProductsGraph.put(document.get());
+            long popularity = suggestionIndex.get(SuggestionIndex.PRODUCT, productId)
+                    .map(SuggestionIndex.Entry::popularity)
+                    .orElse(0L);
+            suggestionIndex.put(new SuggestionIndex.Entry(SuggestionIndex.PRODUCT, productId, document.get().productName(), popularity));
+        } else {
+            catalogSnapshotStore.remove(productId);
+            productSearchIndex.remove(productId);
+            productFacetIndex.remove(productId);
+            productPriceColumn.remove(productId);
+            relatedProductsGraph.remove(productId);
+            suggestionIndex.remove(SuggestionIndex.PRODUCT, productId);
+        }
+        log.debug("Re-indexed Product ID: {}", productId);
+    }
+
+    // Giá sau khuyến mãi chỉ nằm trong snapshot nên chỉ cần tính lại giá cho các sản phẩm liên quan
+    private void reprice(PromotionChangedEvent event) {
+        Set<Integer> productIds = new LinkedHashSet<>();
+        event.promotionIds().forEach(id -> productIds.addAll(catalogSnapshotStore.current().productIdsWithPromotion(id)));
+        productIds.addAll(productRepository.findIdsByPromotionIdIn(event.promotionIds()));
+        rebuildPromotionIndex();
+        Map<Integer, ProductPriceResponse> prices = promotionService.getProductPrices(productIds);
+        catalogSnapshotStore.reprice(prices);
+
+        List<ProductSearchDocument> documents = productIds.stream()
+                .map(productSearchIndex::get)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Integer, Double> changed = changedEffectivePrices(documents, prices);
+        if (!changed.isEmpty()) {
+            productService.updateEffectivePrices(changed);
+            productSearchIndex.updateEffectivePrices(changed);
+            productPriceColumn.updateEffectivePrices(changed);
+        }
+        log.debug("Repriced {} products ({} effective prices changed) for Promotion IDs: {}",
+                productIds.size(), changed.size(), event.promotionIds());
+    }
+}
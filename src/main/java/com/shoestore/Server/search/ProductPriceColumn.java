@@ -0,0 +1,134 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.PriceHistogramResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Effective (after-promotion) product prices as a sorted primitive column with the matching
+ * product IDs alongside, so the slider ranges over the same price the filter and sort use.
+ * A histogram is a single ordered pass over the column (or a few binary searches when no
+ * filter is active), so the price slider never triggers an aggregate over {@code product}.
+ * Writers publish a new pair of arrays; readers keep using the snapshot they started with.
+ */
+@Slf4j
+@Component
+public class ProductPriceColumn {
+
+    private static final int MAX_BUCKETS = 100;
+
+    private record Column(double[] prices, int[] productIds) {
+        static final Column EMPTY = new Column(new double[0], new int[0]);
+    }
+
+    private final Map<Integer, Double> pricesById = new HashMap<>();
+    private volatile Column column = Column.EMPTY;
+
+    public synchronized void rebuild(Collection<ProductSearchDocument> all) {
+        pricesById.clear();
+        all.forEach(d -> pricesById.put(d.productId(), d.effectivePrice()));
+        publish();
+        log.info("Price column rebuilt with {} products", pricesById.size());
+    }
+
+    public synchronized void put(ProductSearchDocument document) {
+        Double previous = pricesById.put(document.productId(), document.effectivePrice());
+        if (previous == null || previous != document.effectivePrice()) {
+            publish();
+        }
+    }
+
+    public synchronized void updateEffectivePrices(Map<Integer, Double> effectivePrices) {
+        effectivePrices.forEach((productId, effectivePrice) -> pricesById.replace(productId, effectivePrice));
+        publish();
+    }
+
+    public synchronized void remove(int productId) {
+        if (pricesById.remove(productId) != null) {
+            publish();
+        }
+    }
+
+    /**
+     * @param productIds products to include, or {@code null} for the whole catalog
+     */
+    public PriceHistogramResponse histogram(Set<Integer> productIds, int bucketCount) {
+        Column current = column;
+        double[] prices = current.prices();
+        int[] ids = current.productIds();
+
+        int first = -1;
+        int last = -1;
+        int total = 0;
+        if (productIds == null) {
+            first = 0;
+            last = prices.length - 1;
+            total = prices.length;
+        } else {
+            for (int i = 0; i < prices.length; i++) {
+                if (productIds.contains(ids[i])) {
+                    if (first < 0) first = i;
+                    last = i;
+                    total++;
+                }
+            }
+        }
+        if (total == 0) {
+            return new PriceHistogramResponse(0, 0, 0, List.of());
+        }
+
+        double min = prices[first];
+        double max = prices[last];
+        int buckets = min == max ? 1 : Math.max(1, Math.min(bucketCount, MAX_BUCKETS));
+        double width = (max - min) / buckets;
+        int[] counts = new int[buckets];
+        if (productIds == null) {
+            // cột đã sắp xếp: đếm mỗi bucket bằng hai lần tìm nhị phân
+            int start = 0;
+            for (int b = 0; b < buckets; b++) {
+                int end = b == buckets - 1 ? prices.length : lowerBound(prices, min + width * (b + 1));
+                counts[b] = end - start;
+                start = end;
+            }
+        } else {
+            for (int i = first; i <= last; i++) {
+                if (productIds.contains(ids[i])) {
+                    counts[Math.min(buckets - 1, (int) ((prices[i] - min) / width))]++;
+                }
+            }
+        }
+
+        List<PriceHistogramResponse.Bucket> result = new ArrayList<>(buckets);
+        for (int b = 0; b < buckets; b++) {
+            double from = min + width * b;
+            double to = b == buckets - 1 ? max : min + width * (b + 1);
+            result.add(new PriceHistogramResponse.Bucket(from, to, counts[b]));
+        }
+        return new PriceHistogramResponse(min, max, total, result);
+    }
+
+    private void publish() {
+        List<Map.Entry<Integer, Double>> entries = new ArrayList<>(pricesById.entrySet());
+        entries.sort(Map.Entry.<Integer, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        double[] prices = new double[entries.size()];
+        int[] ids = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            prices[i] = entries.get(i).getValue();
+            ids[i] = entries.get(i).getKey();
+        }
+        column = new Column(prices, ids);
+    }
+
+    private static int lowerBound(double[] prices, double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
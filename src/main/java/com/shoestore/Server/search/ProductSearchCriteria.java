@@ -0,0 +1,15 @@
+package com.shoestore.Server.search;
+
+import java.util.List;
+
+public record ProductSearchCriteria(
+        List<Integer> categoryIds,
+        List<Integer> brandIds,
+        List<String> colors,
+        List<String> sizes,
+        String keyword,
+        Double minPrice,
+        Double maxPrice,
+        String sortBy
+) {
+}
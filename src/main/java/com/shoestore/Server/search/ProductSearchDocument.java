@@ -0,0 +1,59 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.entities.Product;
+import com.shoestore.Server.entities.ProductDetail;
+import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.Size;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Flat, immutable view of a product as seen by the in-memory search structures.
+ * Built inside a persistence context so that no lazy association is touched afterwards.
+ */
+public record ProductSearchDocument(
+        int productId,
+        String productName,
+        String description,
+        double price,
+        double effectivePrice,
+        int brandId,
+        int categoryId,
+        int supplierId,
+        Set<Color> colors,
+        Set<Size> sizes,
+        double averageRating,
+        LocalDateTime createdAt
+) {
+    public static ProductSearchDocument of(Product product) {
+        Set<Color> colors = EnumSet.noneOf(Color.class);
+        Set<Size> sizes = EnumSet.noneOf(Size.class);
+        if (product.getProductDetails() != null) {
+            for (ProductDetail detail : product.getProductDetails()) {
+                if (detail.getColor() != null) colors.add(detail.getColor());
+                if (detail.getSize() != null) sizes.add(detail.getSize());
+            }
+        }
+        return new ProductSearchDocument(
+                product.getProductID(),
+                product.getProductName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getEffectivePrice(),
+                product.getBrand() != null ? product.getBrand().getBrandID() : 0,
+                product.getCategory() != null ? product.getCategory().getCategoryID() : 0,
+                product.getSupplier() != null ? product.getSupplier().getSupplierID() : 0,
+                colors,
+                sizes,
+                product.getAverageRating(),
+                product.getCreatedAt()
+        );
+    }
+
+    public ProductSearchDocument withEffectivePrice(double effectivePrice) {
+        return new ProductSearchDocument(productId, productName, description, price, effectivePrice, brandId,
+                categoryId, supplierId, colors, sizes, averageRating, createdAt);
+    }
+}
@@ -0,0 +1,6 @@
+package com.shoestore.Server.search;
+
+import java.util.List;
+
+public record ProductSearchHits(List<Integer> productIds, long totalElements) {
+}
@@ -0,0 +1,344 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over the product catalog used by the storefront search.
+ * Name/description tokens are diacritic-folded and kept in a sorted dictionary so that a
+ * partially typed word matches by prefix; a bigram dictionary over the same terms finds the
+ * candidates for a misspelled word, which are then confirmed by edit distance. Brand, category, color and size are plain posting sets.
+ * The database is only used afterwards to hydrate the requested page.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int LONG_WORD_LENGTH = 8;
+
+    private final Map<Integer, ProductSearchDocument> documents = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Integer>> tokens = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> termsByBigram = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> byBrand = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> byCategory = new ConcurrentHashMap<>();
+    private final Map<Color, Set<Integer>> byColor = new ConcurrentHashMap<>();
+    private final Map<Size, Set<Integer>> bySize = new ConcurrentHashMap<>();
+
+    public synchronized void rebuild(Collection<ProductSearchDocument> all) {
+        documents.clear();
+        tokens.clear();
+        termsByBigram.clear();
+        byBrand.clear();
+        byCategory.clear();
+        byColor.clear();
+        bySize.clear();
+        all.forEach(this::add);
+        log.info("Product search index rebuilt with {} products and {} terms", documents.size(), tokens.size());
+    }
+
+    public synchronized void put(ProductSearchDocument document) {
+        ProductSearchDocument previous = documents.get(document.productId());
+        if (previous != null) {
+            drop(previous);
+        }
+        add(document);
+    }
+
+    public synchronized void remove(int productId) {
+        ProductSearchDocument previous = documents.get(productId);
+        if (previous != null) {
+            drop(previous);
+        }
+    }
+
+    /**
+     * Swaps in new effective prices; tokens and postings do not depend on price and are left alone.
+     */
+    public synchronized void updateEffectivePrices(Map<Integer, Double> effectivePrices) {
+        effectivePrices.forEach((productId, effectivePrice) ->
+                documents.computeIfPresent(productId, (id, document) -> document.withEffectivePrice(effectivePrice)));
+    }
+
+    public ProductSearchDocument get(int productId) {
+        return documents.get(productId);
+    }
+
+    public Collection<ProductSearchDocument> documents() {
+        return Collections.unmodifiableCollection(documents.values());
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Only the best {@code page * pageSize} matches are kept (bounded heap), so a page costs
+     * O(matches * log(page * pageSize)) instead of sorting every match.
+     */
+    public ProductSearchHits search(ProductSearchCriteria criteria, int page, int pageSize) {
+        Map<Integer, Double> relevance = keywordScores(criteria.keyword());
+        Set<Integer> candidates = candidates(criteria, relevance);
+        Comparator<ProductSearchDocument> order = comparator(criteria.sortBy(), relevance);
+        long from = (long) Math.max(page - 1, 0) * pageSize;
+        int keep = (int) Math.min(from + pageSize, Integer.MAX_VALUE - 8);
+        // Đỉnh heap là kết quả "tệ" nhất đang giữ, bị thay khi gặp kết quả tốt hơn
+        PriorityQueue<ProductSearchDocument> top = new PriorityQueue<>(Math.max(1, Math.min(keep, 256)), order.reversed());
+        int total = 0;
+        Iterable<ProductSearchDocument> scanned = candidates == null ? documents.values()
+                : () -> candidates.stream().map(documents::get).filter(Objects::nonNull).iterator();
+        for (ProductSearchDocument document : scanned) {
+            if (!inPriceRange(document, criteria)) continue;
+            total++;
+            if (top.size() < keep) {
+                top.add(document);
+            } else if (keep > 0 && order.compare(document, top.peek()) < 0) {
+                top.poll();
+                top.add(document);
+            }
+        }
+
+        List<ProductSearchDocument> best = new ArrayList<>(top);
+        best.sort(order);
+        int start = (int) Math.min(from, best.size());
+        List<Integer> pageIds = best.subList(start, best.size()).stream()
+                .map(ProductSearchDocument::productId)
+                .toList();
+        return new ProductSearchHits(pageIds, total);
+    }
+
+    /**
+     * Product IDs matching the keyword and price range only, or {@code null} when neither is set.
+     */
+    public Set<Integer> matchTextAndPrice(String keyword, Double minPrice, Double maxPrice) {
+        boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+        if (!hasKeyword && minPrice == null && maxPrice == null) {
+            return null;
+        }
+        ProductSearchCriteria criteria = new ProductSearchCriteria(null, null, null, null, keyword, minPrice, maxPrice, null);
+        Set<Integer> candidates = hasKeyword ? candidates(criteria, keywordScores(keyword)) : documents.keySet();
+        Set<Integer> result = new HashSet<>();
+        for (Integer id : candidates) {
+            ProductSearchDocument document = documents.get(id);
+            if (document != null && inPriceRange(document, criteria)) result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Product IDs matching the set-based filters and keyword, ignoring price; {@code null} when none is active.
+     */
+    public Set<Integer> matchFilters(List<Integer> categoryIds, List<Integer> brandIds, List<String> colors,
+                                     List<String> sizes, String keyword) {
+        ProductSearchCriteria criteria = new ProductSearchCriteria(categoryIds, brandIds, colors, sizes, keyword, null, null, null);
+        return candidates(criteria, keywordScores(keyword));
+    }
+
+    /**
+     * The {@code limit} best-scoring product IDs matching every word of the keyword (exactly, by prefix
+     * or fuzzily), or {@code null} for a blank keyword.
+     */
+    public Set<Integer> matchKeyword(String keyword, int limit) {
+        Map<Integer, Double> scores = keywordScores(keyword);
+        if (scores == null) {
+            return null;
+        }
+        Set<Integer> best = new LinkedHashSet<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(e -> best.add(e.getKey()));
+        return best;
+    }
+
+    /**
+     * Intersects every active filter, starting from the most selective posting set.
+     * Returns {@code null} when no set-based filter is active, meaning "all documents".
+     */
+    private Set<Integer> candidates(ProductSearchCriteria criteria, Map<Integer, Double> relevance) {
+        List<Set<Integer>> filters = new ArrayList<>();
+        if (criteria.categoryIds() != null && !criteria.categoryIds().isEmpty())
+            filters.add(union(byCategory, criteria.categoryIds()));
+        if (criteria.brandIds() != null && !criteria.brandIds().isEmpty())
+            filters.add(union(byBrand, criteria.brandIds()));
+        if (criteria.colors() != null && !criteria.colors().isEmpty())
+            filters.add(union(byColor, parseEnums(Color.class, criteria.colors())));
+        if (criteria.sizes() != null && !criteria.sizes().isEmpty())
+            filters.add(union(bySize, parseEnums(Size.class, criteria.sizes())));
+        if (relevance != null)
+            filters.add(relevance.keySet());
+        if (filters.isEmpty()) {
+            return null;
+        }
+
+        filters.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> result = new HashSet<>(filters.get(0));
+        for (int i = 1; i < filters.size() && !result.isEmpty(); i++) {
+            result.retainAll(filters.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Scores documents against the keyword: each word adds the weight of its best matching
+     * term (exact > prefix > typo), and a document must match every word.
+     */
+    private Map<Integer, Double> keywordScores(String keyword) {
+        List<String> words = TextAnalyzer.tokenize(keyword);
+        if (words.isEmpty()) {
+            return null;
+        }
+        Map<Integer, Double> scores = null;
+        for (String word : words) {
+            Map<Integer, Double> wordScores = new HashMap<>();
+            for (Map.Entry<String, Double> term : matchingTerms(word).entrySet()) {
+                for (Integer id : tokens.getOrDefault(term.getKey(), Set.of())) {
+                    wordScores.merge(id, term.getValue(), Math::max);
+                }
+            }
+            if (scores == null) {
+                scores = wordScores;
+            } else {
+                Map<Integer, Double> combined = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : wordScores.entrySet()) {
+                    Double previous = scores.get(entry.getKey());
+                    if (previous != null) combined.put(entry.getKey(), previous + entry.getValue());
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) break;
+        }
+        return scores;
+    }
+
+    private Map<String, Double> matchingTerms(String word) {
+        Map<String, Double> terms = new HashMap<>();
+        for (String term : tokens.subMap(word, true, word + Character.MAX_VALUE, false).keySet()) {
+            terms.put(term, term.equals(word) ? EXACT_WEIGHT : PREFIX_WEIGHT);
+        }
+        if (word.length() < MIN_FUZZY_LENGTH) {
+            return terms;
+        }
+        // q-gram lemma: mỗi lỗi gõ (kể cả đảo 2 ký tự) làm mất tối đa 3 bigram
+        int maxEdits = word.length() >= LONG_WORD_LENGTH ? 2 : 1;
+        Set<String> grams = TextAnalyzer.bigrams(word);
+        int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            for (String term : termsByBigram.getOrDefault(gram, Set.of())) {
+                shared.merge(term, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String term = entry.getKey();
+            if (entry.getValue() < minShared || Math.abs(term.length() - word.length()) > maxEdits) continue;
+            int distance = TextAnalyzer.editDistance(word, term);
+            if (distance > 0 && distance <= maxEdits) {
+                terms.merge(term, PREFIX_WEIGHT * (1 - (double) distance / word.length()), Math::max);
+            }
+        }
+        return terms;
+    }
+
+    private void add(ProductSearchDocument document) {
+        int id = document.productId();
+        documents.put(id, document);
+        for (String token : terms(document)) {
+            tokens.computeIfAbsent(token, k -> {
+                TextAnalyzer.bigrams(k).forEach(g -> termsByBigram.computeIfAbsent(g, x -> ConcurrentHashMap.newKeySet()).add(k));
+                return ConcurrentHashMap.newKeySet();
+            }).add(id);
+        }
+        byBrand.computeIfAbsent(document.brandId(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        byCategory.computeIfAbsent(document.categoryId(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        document.colors().forEach(c -> byColor.computeIfAbsent(c, k -> ConcurrentHashMap.newKeySet()).add(id));
+        document.sizes().forEach(s -> bySize.computeIfAbsent(s, k -> ConcurrentHashMap.newKeySet()).add(id));
+    }
+
+    private void drop(ProductSearchDocument document) {
+        int id = document.productId();
+        documents.remove(id);
+        for (String token : terms(document)) {
+            removePosting(tokens, token, id);
+            if (!tokens.containsKey(token)) {
+                TextAnalyzer.bigrams(token).forEach(g -> termsByBigram.computeIfPresent(g, (k, terms) -> {
+                    terms.remove(token);
+                    return terms.isEmpty() ? null : terms;
+                }));
+            }
+        }
+        removePosting(byBrand, document.brandId(), id);
+        removePosting(byCategory, document.categoryId(), id);
+        document.colors().forEach(c -> removePosting(byColor, c, id));
+        document.sizes().forEach(s -> removePosting(bySize, s, id));
+    }
+
+    private static Set<String> terms(ProductSearchDocument document) {
+        Set<String> terms = new HashSet<>(TextAnalyzer.tokenize(document.productName()));
+        terms.addAll(TextAnalyzer.tokenize(document.description()));
+        return terms;
+    }
+
+    private static <K> void removePosting(Map<K, Set<Integer>> postings, K key, int id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static <K> Set<Integer> union(Map<K, Set<Integer>> postings, Collection<K> keys) {
+        if (keys.size() == 1) {
+            return postings.getOrDefault(keys.iterator().next(), Set.of());
+        }
+        Set<Integer> result = new HashSet<>();
+        for (K key : keys) {
+            result.addAll(postings.getOrDefault(key, Set.of()));
+        }
+        return result;
+    }
+
+    static <E extends Enum<E>> List<E> parseEnums(Class<E> type, List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        List<E> parsed = new ArrayList<>();
+        for (String value : values) {
+            for (E constant : type.getEnumConstants()) {
+                if (constant.name().equalsIgnoreCase(value) || constant.toString().equalsIgnoreCase(value)) {
+                    parsed.add(constant);
+                    break;
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static boolean inPriceRange(ProductSearchDocument document, ProductSearchCriteria criteria) {
+        return (criteria.minPrice() == null || document.effectivePrice() >= criteria.minPrice())
+                && (criteria.maxPrice() == null || document.effectivePrice() <= criteria.maxPrice());
+    }
+
+    private static Comparator<ProductSearchDocument> comparator(String sortBy, Map<Integer, Double> relevance) {
+        Comparator<ProductSearchDocument> byId = Comparator.comparingInt(ProductSearchDocument::productId);
+        if (sortBy == null || "Relevance".equals(sortBy)) {
+            return relevance == null ? byId
+                    : Comparator.<ProductSearchDocument>comparingDouble(d -> relevance.getOrDefault(d.productId(), 0.0)).reversed().thenComparing(byId);
+        }
+        return switch (sortBy) {
+            case "Price: High-Low" -> Comparator.comparingDouble(ProductSearchDocument::effectivePrice).reversed().thenComparing(byId);
+            case "Price: Low-High" -> Comparator.comparingDouble(ProductSearchDocument::effectivePrice).thenComparing(byId);
+            case "Rating" -> Comparator.comparingDouble(ProductSearchDocument::averageRating).reversed().thenComparing(byId);
+            case "Newest" -> Comparator.comparing(ProductSearchDocument::createdAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(byId);
+            default -> byId;
+        };
+    }
+}
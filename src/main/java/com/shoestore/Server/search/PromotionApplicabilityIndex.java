@@ -0,0 +1,100 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.PromotionResponse;
+import com.shoestore.Server.entities.Category;
+import com.shoestore.Server.entities.Product;
+import com.shoestore.Server.entities.Promotion;
+import com.shoestore.Server.enums.ApplicableTo;
+import com.shoestore.Server.enums.PromotionType;
+import com.shoestore.Server.utils.PriceKernel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Active promotions compiled into lookup tables: product ID -> promotions, category ID ->
+ * promotions and the list of storewide ones, so a lookup is three map reads and never touches
+ * the database. Only ACTIVE promotions are compiled in; {@code PromotionLifecycleJob} flips
+ * statuses at their start/end instants and the resulting {@code PromotionChangedEvent} makes
+ * {@code ProductIndexSynchronizer} rebuild the tables. Lookups also drop entries past their end
+ * date, so a late lifecycle tick never extends a promotion.
+ */
+@Slf4j
+@Component
+public class PromotionApplicabilityIndex {
+
+    public record Entry(int promotionId, String name, PromotionType type, long discountUnits, long maxDiscount,
+                        boolean stackable, LocalDateTime endDate,
+                        PromotionResponse response) implements PriceKernel.Discount {
+
+        public static Entry of(Promotion promotion, PromotionResponse response) {
+            return new Entry(promotion.getPromotionID(), promotion.getName(), promotion.getType(),
+                    PriceKernel.units(promotion.getType(), promotion.getDiscountValue()), PriceKernel.cap(promotion.getMaxDiscount()),
+                    Boolean.TRUE.equals(promotion.getStackable()), promotion.getEndDate(), response);
+        }
+
+        public boolean liveAt(LocalDateTime now) {
+            return endDate == null || endDate.isAfter(now);
+        }
+    }
+
+    private record Tables(List<Entry> storewide, Map<Integer, List<Entry>> byCategory, Map<Integer, List<Entry>> byProduct) {
+        static final Tables EMPTY = new Tables(List.of(), Map.of(), Map.of());
+    }
+
+    private volatile Tables tables = Tables.EMPTY;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param promotions ACTIVE promotions with categories and applicable products loaded
+     */
+    public void rebuild(Collection<Promotion> promotions, Map<Integer, PromotionResponse> responses) {
+        List<Entry> storewide = new ArrayList<>();
+        Map<Integer, List<Entry>> byCategory = new HashMap<>();
+        Map<Integer, List<Entry>> byProduct = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            Entry entry = Entry.of(promotion, responses.get(promotion.getPromotionID()));
+            if (promotion.getApplicableTo() == ApplicableTo.ALL) {
+                storewide.add(entry);
+            } else if (promotion.getApplicableTo() == ApplicableTo.CATEGORIES && promotion.getCategories() != null) {
+                for (Category category : promotion.getCategories()) {
+                    byCategory.computeIfAbsent(category.getCategoryID(), k -> new ArrayList<>()).add(entry);
+                }
+            } else if (promotion.getApplicableTo() == ApplicableTo.PRODUCTS && promotion.getApplicableProducts() != null) {
+                for (Product product : promotion.getApplicableProducts()) {
+                    byProduct.computeIfAbsent(product.getProductID(), k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        byCategory.replaceAll((k, v) -> List.copyOf(v));
+        byProduct.replaceAll((k, v) -> List.copyOf(v));
+        tables = new Tables(List.copyOf(storewide), Map.copyOf(byCategory), Map.copyOf(byProduct));
+        ready = true;
+        log.info("Promotion index rebuilt: {} storewide, {} categories, {} products",
+                storewide.size(), byCategory.size(), byProduct.size());
+    }
+
+    public List<Entry> applicable(int productId, int categoryId) {
+        Tables current = tables;
+        LocalDateTime now = LocalDateTime.now();
+        List<Entry> applicable = new ArrayList<>();
+        addLive(applicable, current.storewide(), now);
+        addLive(applicable, current.byCategory().getOrDefault(categoryId, List.of()), now);
+        addLive(applicable, current.byProduct().getOrDefault(productId, List.of()), now);
+        return applicable;
+    }
+
+    private static void addLive(List<Entry> target, List<Entry> entries, LocalDateTime now) {
+        for (Entry entry : entries) {
+            if (entry.liveAt(now)) {
+                target.add(entry);
+            }
+        }
+    }
+}
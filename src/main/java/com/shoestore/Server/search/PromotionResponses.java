@@ -0,0 +1,24 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.PromotionResponse;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+
+/**
+ * Deep copies of the {@link PromotionResponse} objects the in-memory indexes hand out, so a
+ * caller mutating a response never changes the shared indexed instance.
+ */
+public final class PromotionResponses {
+    private PromotionResponses() {
+    }
+
+    public static PromotionResponse copyOf(PromotionResponse promotion) {
+        if (promotion == null) return null;
+        PromotionResponse copy = new PromotionResponse();
+        BeanUtils.copyProperties(promotion, copy);
+        copy.setCategoryIDs(promotion.getCategoryIDs() != null ? new ArrayList<>(promotion.getCategoryIDs()) : null);
+        copy.setApplicableProductIDs(promotion.getApplicableProductIDs() != null ? new ArrayList<>(promotion.getApplicableProductIDs()) : null);
+        return copy;
+    }
+}
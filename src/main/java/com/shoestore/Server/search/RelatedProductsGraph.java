@@ -0,0 +1,239 @@
+package com.shoestore.Server.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Top-K "related products" per product, kept as two parallel primitive arrays per row.
+ * Candidates are the products sharing the category or the brand; they are ranked by
+ * category/brand match, price proximity and the overlap of colors and sizes.
+ * The full graph is first built by {@code ProductIndexSynchronizer} once the search index is loaded
+ * and refreshed by {@code RelatedProductsGraphJob}; a rebuild is computed without holding the
+ * monitor and swapped in at the end, so incremental updates never wait for it. Afterwards a product
+ * change re-scores the rows of products in the same category or brand only when one of the score
+ * inputs (category, brand, price, colors, sizes) changed, so rating and stock updates are free.
+ */
+@Slf4j
+@Component
+public class RelatedProductsGraph {
+
+    private static final double CATEGORY_WEIGHT = 3.0;
+    private static final double BRAND_WEIGHT = 2.0;
+    private static final double PRICE_WEIGHT = 1.5;
+    private static final double COLOR_WEIGHT = 1.0;
+    private static final double SIZE_WEIGHT = 1.0;
+
+    private record Neighbours(int[] ids, float[] scores) {
+        static final Neighbours EMPTY = new Neighbours(new int[0], new float[0]);
+
+        boolean contains(int id) {
+            for (int neighbour : ids) {
+                if (neighbour == id) return true;
+            }
+            return false;
+        }
+
+        float lowest() {
+            return scores.length == 0 ? Float.NEGATIVE_INFINITY : scores[scores.length - 1];
+        }
+    }
+
+    private record Postings(Map<Integer, ProductSearchDocument> documents,
+                            Map<Integer, Set<Integer>> byCategory,
+                            Map<Integer, Set<Integer>> byBrand) {
+        Postings() {
+            this(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    private volatile Map<Integer, Neighbours> rows = new ConcurrentHashMap<>();
+    private Postings postings = new Postings();
+    // Thay đổi đến trong lúc rebuild đang chạy, áp dụng lại sau khi hoán đổi
+    private Map<Integer, Optional<ProductSearchDocument>> changedDuringRebuild;
+    private volatile boolean ready;
+    private final Object rebuildLock = new Object();
+
+    @Value("${app.related-products.top-k:10}")
+    private int topK;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Integer> related(int productId) {
+        Neighbours row = rows.getOrDefault(productId, Neighbours.EMPTY);
+        List<Integer> ids = new ArrayList<>(row.ids().length);
+        for (int id : row.ids()) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    public void rebuild(Collection<ProductSearchDocument> all) {
+        synchronized (rebuildLock) {
+            rebuildUnlocked(all);
+        }
+    }
+
+    private void rebuildUnlocked(Collection<ProductSearchDocument> all) {
+        synchronized (this) {
+            changedDuringRebuild = new LinkedHashMap<>();
+        }
+        Postings built = new Postings();
+        all.forEach(document -> add(built, document));
+        Map<Integer, Neighbours> computed = new ConcurrentHashMap<>(built.documents().size() * 2);
+        for (ProductSearchDocument document : built.documents().values()) {
+            computed.put(document.productId(), computeRow(built, document));
+        }
+
+        synchronized (this) {
+            postings = built;
+            rows = computed;
+            Map<Integer, Optional<ProductSearchDocument>> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            ready = true;
+            changed.forEach((productId, document) -> {
+                if (document.isPresent()) put(document.get());
+                else remove(productId);
+            });
+        }
+        log.info("Related products graph rebuilt for {} products (top {})", computed.size(), topK);
+    }
+
+    public synchronized void put(ProductSearchDocument document) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(document.productId(), Optional.of(document));
+        }
+        if (!ready) {
+            return;
+        }
+        Map<Integer, ProductSearchDocument> documents = postings.documents();
+        ProductSearchDocument previous = documents.get(document.productId());
+        if (previous != null && !scoreInputsChanged(previous, document)) {
+            // chỉ đổi tên/đánh giá/tồn kho...: điểm không đổi nên không cần tính lại hàng xóm
+            documents.put(document.productId(), document);
+            return;
+        }
+        Set<Integer> affected = new HashSet<>();
+        if (previous != null) {
+            affected.addAll(candidates(postings, previous));
+            drop(postings, previous);
+        }
+        add(postings, document);
+        affected.addAll(candidates(postings, document));
+        affected.remove(document.productId());
+
+        rows.put(document.productId(), computeRow(postings, document));
+        for (int otherId : affected) {
+            ProductSearchDocument other = documents.get(otherId);
+            Neighbours row = rows.getOrDefault(otherId, Neighbours.EMPTY);
+            if (row.contains(document.productId()) || previous != null) {
+                rows.put(otherId, computeRow(postings, other));
+            } else {
+                float score = (float) score(other, document);
+                if (row.ids().length < topK || score > row.lowest()) {
+                    rows.put(otherId, computeRow(postings, other));
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(int productId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(productId, Optional.empty());
+        }
+        ProductSearchDocument previous = postings.documents().get(productId);
+        rows.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        Set<Integer> affected = candidates(postings, previous);
+        drop(postings, previous);
+        for (int otherId : affected) {
+            if (otherId != productId && rows.getOrDefault(otherId, Neighbours.EMPTY).contains(productId)) {
+                rows.put(otherId, computeRow(postings, postings.documents().get(otherId)));
+            }
+        }
+    }
+
+    private Neighbours computeRow(Postings postings, ProductSearchDocument document) {
+        // min-heap theo score, giữ K ứng viên tốt nhất; hoà điểm thì ưu tiên ID nhỏ hơn
+        Comparator<Map.Entry<Integer, Double>> worstFirst = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(worstFirst);
+        for (int candidateId : candidates(postings, document)) {
+            if (candidateId == document.productId()) continue;
+            heap.offer(Map.entry(candidateId, score(document, postings.documents().get(candidateId))));
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        int size = heap.size();
+        int[] ids = new int[size];
+        float[] scores = new float[size];
+        for (int i = size - 1; i >= 0; i--) {
+            Map.Entry<Integer, Double> entry = heap.poll();
+            ids[i] = entry.getKey();
+            scores[i] = entry.getValue().floatValue();
+        }
+        return new Neighbours(ids, scores);
+    }
+
+    static double score(ProductSearchDocument a, ProductSearchDocument b) {
+        double score = 0;
+        if (a.categoryId() == b.categoryId()) score += CATEGORY_WEIGHT;
+        if (a.brandId() == b.brandId()) score += BRAND_WEIGHT;
+        double maxPrice = Math.max(a.price(), b.price());
+        if (maxPrice > 0) {
+            score += PRICE_WEIGHT * (1 - Math.abs(a.price() - b.price()) / maxPrice);
+        }
+        score += COLOR_WEIGHT * jaccard(a.colors(), b.colors());
+        score += SIZE_WEIGHT * jaccard(a.sizes(), b.sizes());
+        return score;
+    }
+
+    private static boolean scoreInputsChanged(ProductSearchDocument a, ProductSearchDocument b) {
+        return a.categoryId() != b.categoryId() || a.brandId() != b.brandId() || a.price() != b.price()
+                || !a.colors().equals(b.colors()) || !a.sizes().equals(b.sizes());
+    }
+
+    private static <E> double jaccard(Set<E> a, Set<E> b) {
+        if (a.isEmpty() && b.isEmpty()) return 0;
+        int shared = 0;
+        for (E e : a) {
+            if (b.contains(e)) shared++;
+        }
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+
+    private static Set<Integer> candidates(Postings postings, ProductSearchDocument document) {
+        Set<Integer> candidates = new HashSet<>(postings.byCategory().getOrDefault(document.categoryId(), Set.of()));
+        candidates.addAll(postings.byBrand().getOrDefault(document.brandId(), Set.of()));
+        return candidates;
+    }
+
+    private static void add(Postings postings, ProductSearchDocument document) {
+        postings.documents().put(document.productId(), document);
+        postings.byCategory().computeIfAbsent(document.categoryId(), k -> new HashSet<>()).add(document.productId());
+        postings.byBrand().computeIfAbsent(document.brandId(), k -> new HashSet<>()).add(document.productId());
+    }
+
+    private static void drop(Postings postings, ProductSearchDocument document) {
+        postings.documents().remove(document.productId());
+        removeFrom(postings.byCategory(), document.categoryId(), document.productId());
+        removeFrom(postings.byBrand(), document.brandId(), document.productId());
+    }
+
+    private static void removeFrom(Map<Integer, Set<Integer>> postings, int key, int productId) {
+        Set<Integer> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(productId);
+            if (ids.isEmpty()) postings.remove(key);
+        }
+    }
+}
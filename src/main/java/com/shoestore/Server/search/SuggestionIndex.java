@@ -0,0 +1,161 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.response.SuggestionResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Completion trie for the search box. Every phrase is inserted from each word start
+ * ("nike air max", "air max", "max"), and every node caches its best completions
+ * ordered by popularity, so a lookup is a walk down the prefix plus a list copy.
+ * Writers are serialized; readers walk concurrent child maps and volatile top lists.
+ */
+@Slf4j
+@Component
+public class SuggestionIndex {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String BRAND = "BRAND";
+    public static final String CATEGORY = "CATEGORY";
+
+    public record Entry(String type, int id, String text, long popularity) {
+        String key() {
+            return type + ":" + id;
+        }
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparingInt(e -> e.text().length())
+            .thenComparing(Entry::text);
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        final Map<String, Entry> terminal = new HashMap<>();
+        volatile List<Entry> top = List.of();
+    }
+
+    private volatile Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    @Value("${app.search.suggest.max-results:10}")
+    private int maxResults;
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String normalized = String.join(" ", TextAnalyzer.tokenize(prefix));
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.children.get(normalized.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return node.top.stream()
+                .limit(Math.max(1, Math.min(limit, maxResults)))
+                .map(e -> new SuggestionResponse(e.type(), e.id(), e.text()))
+                .toList();
+    }
+
+    public synchronized void rebuild(Collection<Entry> all) {
+        Node fresh = new Node();
+        entries.clear();
+        for (Entry entry : all) {
+            insert(fresh, entry);
+            entries.put(entry.key(), entry);
+        }
+        root = fresh;
+        log.info("Suggestion index rebuilt with {} entries", entries.size());
+    }
+
+    public synchronized Optional<Entry> get(String type, int id) {
+        return Optional.ofNullable(entries.get(type + ":" + id));
+    }
+
+    public synchronized void put(Entry entry) {
+        Entry previous = entries.get(entry.key());
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            delete(root, previous);
+        }
+        insert(root, entry);
+        entries.put(entry.key(), entry);
+    }
+
+    public synchronized void remove(String type, int id) {
+        Entry previous = entries.remove(type + ":" + id);
+        if (previous != null) {
+            delete(root, previous);
+        }
+    }
+
+    private void insert(Node root, Entry entry) {
+        for (String phrase : phrases(entry.text())) {
+            Node node = root;
+            for (int i = 0; i < phrase.length(); i++) {
+                node = node.children.computeIfAbsent(phrase.charAt(i), c -> new Node());
+                node.top = offer(node.top, entry);
+            }
+            node.terminal.put(entry.key(), entry);
+        }
+    }
+
+    private void delete(Node root, Entry entry) {
+        for (String phrase : phrases(entry.text())) {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            for (int i = 0; i < phrase.length() && node != null; i++) {
+                node = node.children.get(phrase.charAt(i));
+                if (node != null) path.push(node);
+            }
+            if (node == null) continue;
+            node.terminal.remove(entry.key());
+
+            // tính lại top-K từ dưới lên, chỉ trên đường đi của cụm từ
+            int depth = phrase.length();
+            while (!path.isEmpty()) {
+                Node current = path.pop();
+                depth--;
+                List<Entry> candidates = new ArrayList<>(current.terminal.values());
+                current.children.values().forEach(child -> candidates.addAll(child.top));
+                current.top = best(candidates);
+                if (current.top.isEmpty() && current.children.isEmpty()) {
+                    Node parent = path.isEmpty() ? root : path.peek();
+                    parent.children.remove(phrase.charAt(depth));
+                }
+            }
+        }
+    }
+
+    private List<Entry> offer(List<Entry> top, Entry entry) {
+        List<Entry> candidates = new ArrayList<>(top.size() + 1);
+        candidates.addAll(top);
+        candidates.add(entry);
+        return best(candidates);
+    }
+
+    private List<Entry> best(List<Entry> candidates) {
+        Map<String, Entry> distinct = new HashMap<>();
+        candidates.forEach(e -> distinct.putIfAbsent(e.key(), e));
+        return distinct.values().stream()
+                .sorted(RANKING)
+                .limit(maxResults)
+                .toList();
+    }
+
+    private static Set<String> phrases(String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        Set<String> phrases = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            phrases.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,158 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.dto.request.VoucherDTO;
+import com.shoestore.Server.entities.Voucher;
+import com.shoestore.Server.enums.CustomerGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Enabled vouchers partitioned by {@link CustomerGroup}, each partition sorted by
+ * {@code minOrderValue}. "Eligible for group G at order value V" is a binary search for the
+ * last voucher with {@code minOrderValue <= V} plus a time-window check on that prefix.
+ * Vouchers whose window has ended are dropped the first time a lookup passes their end date.
+ * Partitions are immutable and swapped whole; writers are serialized.
+ */
+@Slf4j
+@Component
+public class VoucherEligibilityIndex {
+
+    public record Entry(int voucherId, CustomerGroup customerGroup, BigDecimal minOrderValue,
+                        LocalDateTime startDate, LocalDateTime endDate, VoucherDTO voucher) {
+
+        public static Entry of(Voucher voucher, VoucherDTO dto) {
+            return new Entry(voucher.getVoucherID(), voucher.getCustomerGroup(),
+                    voucher.getMinOrderValue() != null ? voucher.getMinOrderValue() : BigDecimal.ZERO,
+                    voucher.getStartDate(), voucher.getEndDate(), dto);
+        }
+
+        // Giống query cũ: voucher tắt, thiếu nhóm khách hàng hoặc thiếu thời gian thì không bao giờ hợp lệ
+        static boolean indexable(Voucher voucher) {
+            return voucher.isStatus() && voucher.getCustomerGroup() != null
+                    && voucher.getStartDate() != null && voucher.getEndDate() != null;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::minOrderValue)
+            .thenComparingInt(Entry::voucherId);
+
+    private record Partition(Entry[] entries, BigDecimal[] minOrderValues) {
+        static final Partition EMPTY = new Partition(new Entry[0], new BigDecimal[0]);
+
+        static Partition of(Collection<Entry> entries) {
+            Entry[] sorted = entries.toArray(Entry[]::new);
+            Arrays.sort(sorted, ORDER);
+            BigDecimal[] minOrderValues = new BigDecimal[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                minOrderValues[i] = sorted[i].minOrderValue();
+            }
+            return new Partition(sorted, minOrderValues);
+        }
+
+        // Số voucher có minOrderValue <= orderValue
+        int eligiblePrefix(BigDecimal orderValue) {
+            int low = 0;
+            int high = minOrderValues.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minOrderValues[mid].compareTo(orderValue) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private volatile Map<CustomerGroup, Partition> partitions = Map.of();
+    private volatile LocalDateTime nextExpiry;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<VoucherDTO> eligible(CustomerGroup group, BigDecimal orderValue, LocalDateTime now) {
+        if (group == null || orderValue == null) {
+            return List.of();
+        }
+        if (nextExpiry != null && !now.isBefore(nextExpiry)) {
+            pruneEnded(now);
+        }
+        Partition partition = partitions.getOrDefault(group, Partition.EMPTY);
+        int prefix = partition.eligiblePrefix(orderValue);
+        List<VoucherDTO> vouchers = new ArrayList<>();
+        for (int i = 0; i < prefix; i++) {
+            Entry entry = partition.entries()[i];
+            if (entry.startDate().isBefore(now) && entry.endDate().isAfter(now)) {
+                vouchers.add(copy(entry.voucher()));
+            }
+        }
+        return vouchers;
+    }
+
+    public synchronized void rebuild(Collection<Entry> entries) {
+        Map<CustomerGroup, List<Entry>> byGroup = new EnumMap<>(CustomerGroup.class);
+        entries.forEach(e -> byGroup.computeIfAbsent(e.customerGroup(), g -> new ArrayList<>()).add(e));
+        publish(byGroup);
+        ready = true;
+        log.info("Voucher eligibility index rebuilt with {} vouchers", entries.size());
+    }
+
+    /**
+     * Replaces the given vouchers: {@code entries} are (re)inserted, any other ID in
+     * {@code voucherIds} is removed.
+     */
+    public synchronized void update(Set<Integer> voucherIds, Collection<Entry> entries) {
+        Map<CustomerGroup, List<Entry>> byGroup = grouped(e -> !voucherIds.contains(e.voucherId()));
+        entries.forEach(e -> byGroup.computeIfAbsent(e.customerGroup(), g -> new ArrayList<>()).add(e));
+        publish(byGroup);
+    }
+
+    private synchronized void pruneEnded(LocalDateTime now) {
+        if (nextExpiry == null || now.isBefore(nextExpiry)) {
+            return;
+        }
+        publish(grouped(e -> e.endDate().isAfter(now)));
+    }
+
+    private Map<CustomerGroup, List<Entry>> grouped(Predicate<Entry> keep) {
+        Map<CustomerGroup, List<Entry>> byGroup = new EnumMap<>(CustomerGroup.class);
+        partitions.forEach((group, partition) -> {
+            for (Entry entry : partition.entries()) {
+                if (keep.test(entry)) {
+                    byGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(entry);
+                }
+            }
+        });
+        return byGroup;
+    }
+
+    private void publish(Map<CustomerGroup, List<Entry>> byGroup) {
+        Map<CustomerGroup, Partition> fresh = new EnumMap<>(CustomerGroup.class);
+        LocalDateTime earliestEnd = null;
+        for (Map.Entry<CustomerGroup, List<Entry>> group : byGroup.entrySet()) {
+            fresh.put(group.getKey(), Partition.of(group.getValue()));
+            for (Entry entry : group.getValue()) {
+                if (earliestEnd == null || entry.endDate().isBefore(earliestEnd)) {
+                    earliestEnd = entry.endDate();
+                }
+            }
+        }
+        partitions = Collections.unmodifiableMap(fresh);
+        nextExpiry = earliestEnd;
+    }
+
+    private static VoucherDTO copy(VoucherDTO voucher) {
+        VoucherDTO copy = new VoucherDTO();
+        BeanUtils.copyProperties(voucher, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,50 @@
+package com.shoestore.Server.search;
+
+import com.shoestore.Server.entities.Voucher;
+import com.shoestore.Server.events.VoucherChangedEvent;
+import com.shoestore.Server.mapper.VoucherMapper;
+import com.shoestore.Server.repositories.VoucherRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Loads enabled, unexpired vouchers into the {@link VoucherEligibilityIndex} at startup and
+ * applies {@link VoucherChangedEvent}s once the writing transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoucherIndexSynchronizer {
+    private final VoucherRepository voucherRepository;
+    private final VoucherMapper voucherMapper;
+    private final VoucherEligibilityIndex voucherEligibilityIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        voucherEligibilityIndex.rebuild(entries(voucherRepository.findByStatusTrueAndEndDateAfter(LocalDateTime.now())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onVoucherChanged(VoucherChangedEvent event) {
+        voucherEligibilityIndex.update(event.voucherIds(), entries(voucherRepository.findAllById(event.voucherIds())));
+        log.debug("Re-indexed {} vouchers", event.voucherIds().size());
+    }
+
+    private List<VoucherEligibilityIndex.Entry> entries(List<Voucher> vouchers) {
+        return vouchers.stream()
+                .filter(VoucherEligibilityIndex.Entry::indexable)
+                .map(v -> VoucherEligibilityIndex.Entry.of(v, voucherMapper.toDto(v)))
+                .toList();
+    }
+}
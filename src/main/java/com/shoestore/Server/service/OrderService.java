@@ -67,6 +67,8 @@ public interface OrderService {
 
     PaginationResponse<OrderDTO> getAllOrdersPaged(int page, int pageSize);
 
+    PaginationResponse<OrderDTO> getAllOrdersScrolled(String cursor, int pageSize);
+
     PaginationResponse<OrderDTO> getOrdersByDay(int page, int pageSize);
 
     PaginationResponse<OrderDTO> getOrdersByMonth(int page, int pageSize);
@@ -88,6 +90,17 @@ public interface OrderService {
             String mode
     );
 
+    PaginationResponse<OrderResponse> filterOrdersScrolled(
+            String status,
+            String query,
+            LocalDate from,
+            LocalDate to,
+            String cursor,
+            int pageSize,
+            String sort,
+            String mode
+    );
+
     OrderStatusHistoryResponse updateOrderStatus(int id, UpdateOrderStatusRequest request);
     List<OrderStatusHistoryResponse> getOrderHistory(int orderID);
     OrderStatusHistoryResponse create(OrderHistoryStatusDTO orderHistoryStatusDTO);
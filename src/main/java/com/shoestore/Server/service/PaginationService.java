@@ -3,13 +3,34 @@ package com.shoestore.Server.service;
 import com.shoestore.Server.dto.response.PaginationResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 
 public interface PaginationService {
+    /**
+     * Slices a list that is already in memory. Only meant for small or external collections
+     * (e.g. Cloudinary resources); database tables must be paged with a {@link Pageable} query.
+     * Lists above {@code app.pagination.in-memory-warn-threshold} are logged as a warning.
+     */
     <T> PaginationResponse<T> paginate(List<T> items, int page, int pageSize);
 
     <T> PaginationResponse<T> paginate(Page<T> page);
 
     Pageable createPageable(int page, int pageSize);
+
+    /**
+     * Keyset mode: wraps a scrolled {@link Window} without a total count. {@code nextCursor} encodes the
+     * sort keys and id of the last row and is null on the last page.
+     */
+    <T> PaginationResponse<T> paginate(Window<T> window, int pageSize);
+
+    /**
+     * Decodes a cursor produced by {@link #paginate(Window, int)}; a blank cursor starts from the first row.
+     * The cursor must carry exactly the properties of {@code sort} (which must end with the id), all
+     * non-null, otherwise it is rejected as a bad request.
+     */
+    ScrollPosition resolveCursor(String cursor, Sort sort);
 }
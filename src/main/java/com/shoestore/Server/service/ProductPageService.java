@@ -0,0 +1,9 @@
+package com.shoestore.Server.service;
+
+import com.shoestore.Server.dto.response.ProductPageResponse;
+
+public interface ProductPageService {
+    ProductPageResponse getProductPage(int productId, int reviewPageSize);
+
+    String computeETag(ProductPageResponse page);
+}
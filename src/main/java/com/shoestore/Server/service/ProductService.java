@@ -1,14 +1,20 @@
 package com.shoestore.Server.service;
 
 import com.shoestore.Server.dto.request.ProductDTO;
+import com.shoestore.Server.dto.response.FacetCountsResponse;
 import com.shoestore.Server.dto.response.FeaturedProductResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceHistogramResponse;
+import com.shoestore.Server.dto.response.RatingSummaryResponse;
 import com.shoestore.Server.dto.response.SearchProductResponse;
+import com.shoestore.Server.dto.response.SuggestionResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     PaginationResponse<SearchProductResponse> getAllProducts(int page, int pageSize);
+    long countProducts();
     ProductDTO getProductByProductDetailsId(int id);
 
     ProductDTO getProductById(int id);
@@ -18,6 +24,8 @@ public interface ProductService {
                                                                   String keyword, Double minPrice, Double maxPrice, String sortBy, int page, int pageSize);
 
 
+    FacetCountsResponse getFacetCounts(List<Integer> categoryIds, List<Integer> brandIds, List<Integer> supplierIds,
+                                       List<String> colors, List<String> sizes, String keyword, Double minPrice, Double maxPrice);
 
     PaginationResponse<ProductDTO> searchProducts(String status,
                                                          List<Integer> categoryIds,
@@ -34,7 +42,17 @@ public interface ProductService {
     boolean deleteProduct(int id);
     
     double getAverageRating(int id);
-    List<SearchProductResponse> getRelatedProducts(int productId, int categoryId, int brandId);
+    List<SearchProductResponse> getRelatedProducts(int productId);
+    List<SuggestionResponse> getSuggestions(String query, int limit);
+    RatingSummaryResponse getRatingSummary(int productId);
+    PriceHistogramResponse getPriceHistogram(List<Integer> categoryIds, List<Integer> brandIds, List<String> colors,
+                                             List<String> sizes, String keyword, int buckets);
     List<FeaturedProductResponse> getBestSellingProduct();
     List<FeaturedProductResponse> getNewArrivals();
+
+    /**
+     * Stores the given after-promotion prices in {@code product.effectivePrice} with one JDBC batch,
+     * in a transaction of its own.
+     */
+    void updateEffectivePrices(Map<Integer, Double> effectivePrices);
 }
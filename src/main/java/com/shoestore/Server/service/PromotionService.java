@@ -2,17 +2,23 @@ package com.shoestore.Server.service;
 
 import com.shoestore.Server.dto.request.PromotionDTO;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceQuoteResponse;
+import com.shoestore.Server.dto.response.ProductPriceResponse;
 import com.shoestore.Server.dto.response.PromotionResponse;
 import com.shoestore.Server.enums.PromotionStatus;
 import com.shoestore.Server.enums.PromotionType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PromotionService {
     double getDiscountedPrice(int productID);
 
+    Map<Integer, ProductPriceResponse> getProductPrices(Collection<Integer> productIds);
+
     PromotionResponse getPromotionByProductID(int id);
 
     PromotionResponse getPromotionById(int id);
@@ -42,5 +48,16 @@ public interface PromotionService {
     List<PromotionResponse> getAppliedPromotionsForProduct(int productId);
 
     BigDecimal calculateFinalPriceWithPromotions(int productId);
+
+    List<PriceQuoteResponse> getPriceQuotes(Collection<Integer> productIds);
+
+    /**
+     * Moves the given promotions ({@code null} = every promotion not yet expired) to the status
+     * their start/end dates imply, publishing one {@code PromotionChangedEvent} for the changed ones.
+     *
+     * @return the next start or end instant of each promotion that still has one
+     */
+    Map<Integer, LocalDateTime> transitionStatuses(Collection<Integer> promotionIds);
+
     PromotionResponse getPromotionTypeByProductId(int productID);
 }
@@ -0,0 +1,53 @@
+package com.shoestore.Server.service;
+
+import com.shoestore.Server.enums.RedemptionType;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Usage limits of vouchers and promotions, enforced in Redis. A checkout first reserves a use
+ * under its own token, then confirms it once the order is stored or releases it on failure.
+ * Unconfirmed reservations expire on their own. A token is counted at most once, and a
+ * confirmed use is given back with {@link #refund} when its order is canceled. Confirmed
+ * counts are written back to MySQL in batches by {@code RedemptionReconcileJob}.
+ */
+public interface RedemptionService {
+
+    record Counter(RedemptionType type, int id) {
+    }
+
+    /**
+     * Token of the uses taken by an order, so a cancellation can give them back.
+     */
+    static String orderToken(int orderId) {
+        return "order:" + orderId;
+    }
+
+    /**
+     * Reserving a token that is already held or confirmed succeeds without taking another use.
+     *
+     * @return {@code false} if the usage limit is already reached
+     */
+    boolean reserve(RedemptionType type, int id, String token);
+
+    boolean confirm(RedemptionType type, int id, String token);
+
+    boolean release(RedemptionType type, int id, String token);
+
+    /**
+     * Gives back a confirmed use.
+     *
+     * @return {@code false} if the token was never confirmed or is already refunded
+     */
+    boolean refund(RedemptionType type, int id, String token);
+
+    /**
+     * Takes up to {@code max} counters changed since the last call, with their current usage.
+     */
+    Map<Counter, Long> pollPendingUsage(int max);
+
+    void persistUsage(Map<Counter, Long> usage);
+
+    void markPending(Collection<Counter> counters);
+}
@@ -1,6 +1,7 @@
 package com.shoestore.Server.service;
 
 import com.shoestore.Server.dto.request.ReviewDTO;
+import com.shoestore.Server.dto.response.PaginationResponse;
 import com.shoestore.Server.dto.response.ReviewResponse;
 
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.List;
 public interface ReviewService {
     ReviewDTO getReview(int id);
     List<ReviewResponse> getReviewByProductId(int productId);
+    PaginationResponse<ReviewResponse> getReviewsByProductId(int productId, int page, int pageSize);
     ReviewDTO addReview(ReviewDTO reviewDTO);
     ReviewDTO getReviewByOrderDetail(int orderDetailId);
 }
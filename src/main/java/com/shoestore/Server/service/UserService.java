@@ -21,6 +21,8 @@ public interface UserService {
     void updateRefreshToken(String email, String refreshToken);
 
     PaginationResponse<UserResponse> getAllUsers(int page, int size);
+    PaginationResponse<UserResponse> getAllUsersScrolled(String cursor, int size);
+    PaginationResponse<UserResponse> getCustomersScrolled(String cursor, int size);
 
     PaginationResponse<UserResponse> getUsersByRoleCustomer(int page, int size);
 
@@ -0,0 +1,13 @@
+package com.shoestore.Server.service;
+
+import com.shoestore.Server.dto.request.VoucherCampaignRequest;
+import com.shoestore.Server.dto.response.VoucherCampaignResponse;
+
+public interface VoucherCampaignService {
+    /**
+     * Starts generating the campaign's codes in the background and returns its initial progress.
+     */
+    VoucherCampaignResponse startCampaign(VoucherCampaignRequest request);
+
+    VoucherCampaignResponse getCampaign(String campaignId);
+}
@@ -1,4 +1,5 @@
 package com.shoestore.Server.service.impl;
+import com.shoestore.Server.cache.CacheNames;
 import com.shoestore.Server.dto.request.BrandDTO;
 import com.shoestore.Server.dto.request.CategoryDTO;
 import com.shoestore.Server.dto.request.SupplierDTO;
@@ -7,6 +8,7 @@ import com.shoestore.Server.entities.Category;
 import com.shoestore.Server.mapper.BrandMapper;
 import com.shoestore.Server.repositories.BrandRepository;
 import com.shoestore.Server.service.BrandService;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -21,11 +23,13 @@ public class BrandServiceImpl implements BrandService {
         this.brandMapper = brandMapper;
     }
     @Override
+    @Cacheable(cacheNames = CacheNames.BRAND, unless = "#result == null")
     public BrandDTO getBrandById(int id) {
         Brand brand=brandRepository.findByBrandID(id);
         return brandMapper.toDto(brand);
     }
     @Override
+    @Cacheable(cacheNames = CacheNames.BRANDS, sync = true)
     public List<BrandDTO> getAllBrands() {
         return brandRepository.findAll().stream()
                 .map(brandMapper::toDto)
@@ -3,6 +3,7 @@ package com.shoestore.Server.service.impl;
 import com.shoestore.Server.dto.request.CartItemDTO;
 import com.shoestore.Server.dto.response.OverviewCartItemResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.ProductPriceResponse;
 import com.shoestore.Server.entities.*;
 import com.shoestore.Server.mapper.CartItemMapper;
 import com.shoestore.Server.mapper.ProductDetailMapper;
@@ -16,18 +17,85 @@ import com.shoestore.Server.service.PaginationService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * The cart of a user lives in two Redis hashes: {@code cart:user:{id}:items} holds each line
+ * under its productDetailID (the item itself) and {@code <productDetailID>:qty} (its quantity, so
+ * adding to a line is a single HINCRBY), and {@code cart:user:{id}:ids} maps cartItemID to
+ * productDetailID. Both keys carry the user id as hash tag so they share a cluster slot. Every
+ * single-item operation is one Lua script, i.e. one round-trip regardless of cart size; writes of
+ * several lines are pipelined. A cart missing from Redis is reloaded from MySQL on first use.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartItemServiceImpl implements CartItemService {
+    private static final Duration CART_TTL = Duration.ofHours(24);
+    private static final String QUANTITY_SUFFIX = ":qty";
+    private static final long MISSING = -1;
+    private static final long NOT_LOADED = -2;
+    private static final StringRedisSerializer ARGS = new StringRedisSerializer();
+
+    // KEYS: items, ids | ARGV: productDetailID, quantity, ttl
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return -1 end
+            local quantity = redis.call('HINCRBY', KEYS[1], ARGV[1] .. ':qty', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return quantity
+            """, Long.class);
+
+    // KEYS: items, ids | ARGV: cartItemID, quantity, ttl
+    private static final RedisScript<Long> SET_QUANTITY = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local productDetailId = redis.call('HGET', KEYS[2], ARGV[1])
+            if not productDetailId then return -1 end
+            redis.call('HSET', KEYS[1], productDetailId .. ':qty', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return tonumber(productDetailId)
+            """, Long.class);
+
+    // KEYS: items, ids | ARGV: cartItemID
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local productDetailId = redis.call('HGET', KEYS[2], ARGV[1])
+            if not productDetailId then return -1 end
+            redis.call('HDEL', KEYS[1], productDetailId, productDetailId .. ':qty')
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            return tonumber(productDetailId)
+            """, Long.class);
+
+    // KEYS: items, ids | ARGV: cartItemID -> {} khi giỏ chưa được nạp, ngược lại {item, quantity}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GET = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return {} end
+            local productDetailId = redis.call('HGET', KEYS[2], ARGV[1])
+            if not productDetailId then return {false, false} end
+            return redis.call('HMGET', KEYS[1], productDetailId, productDetailId .. ':qty')
+            """, List.class);
+
     private final ProductDetailRepository productDetailRepository;
     private final CartItemRepository cartItemRepository;
     private final CartRepository cartRepository;
@@ -38,39 +106,20 @@ public class CartItemServiceImpl implements CartItemService {
     private final RedisTemplate<String, Object> redisTemplate;
 
     @Override
+    @Transactional(readOnly = true)
     public PaginationResponse<OverviewCartItemResponse> getCartItemsByCartId(int userId, int page, int pageSize) {
         log.info("Fetching cart items for userId: {}", userId);
-        String key = "cart:user:" + userId;
-        Map<Object, Object> cart = redisTemplate.opsForHash().entries(key);
+        List<CartItemDTO> cart = readCart(userId);
         if (cart.isEmpty()) {
-            loadCartFromDatabase(userId);
-            cart = redisTemplate.opsForHash().entries(key);
+            cart = loadCartFromDatabase(userId);
         }
-        List<OverviewCartItemResponse> items = cart.values().stream()
-                .map(obj -> (CartItemDTO) obj)
-                .map(dto -> {
-                    ProductDetail productDetail = productDetailRepository.findById(dto.getProductDetail().getProductDetailID())
-                            .orElseThrow(() -> new EntityNotFoundException("ProductDetail not found"));
-                    Product product = productDetail.getProduct();
-
-                    OverviewCartItemResponse response = new OverviewCartItemResponse();
-                    response.setCartItemDTO(dto);
-                    response.setProductDetailDTO(productDetailMapper.toProductDetailsResponse(productDetail));
-                    response.setProductDTO(productMapper.toDto(product));
-                    response.setDiscountPrice(promotionService.getDiscountedPrice(product.getProductID()));
-
-                    Promotion promotion = product.getPromotion();
-                    if (promotion != null) {
-                        response.setPromotion(promotionService.getPromotionById(promotion.getPromotionID()));
-                    } else {
-                        response.setPromotion(null);
-                    }
-
-                    return response;
-                })
+        // Phân trang trước (theo cartItemID cho thứ tự ổn định), chỉ nạp dữ liệu cho các mục của trang
+        List<CartItemDTO> pageItems = cart.stream()
+                .sorted(Comparator.comparingInt(CartItemDTO::getCartItemID))
                 .skip((page - 1L) * pageSize)
                 .limit(pageSize)
                 .collect(Collectors.toList());
+        List<OverviewCartItemResponse> items = toOverviewResponses(pageItems);
 
         return PaginationResponse.<OverviewCartItemResponse>builder()
                 .items(items)
@@ -81,110 +130,130 @@ public class CartItemServiceImpl implements CartItemService {
                 .build();
     }
 
+    // Một query cho biến thể + sản phẩm, một lượt getProductPrices cho giá và khuyến mãi, bất kể số mục
+    private List<OverviewCartItemResponse> toOverviewResponses(List<CartItemDTO> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Integer> productDetailIds = items.stream()
+                .map(dto -> dto.getProductDetail().getProductDetailID())
+                .collect(Collectors.toSet());
+        Map<Integer, ProductDetail> productDetails = productDetailRepository.findWithProductByIdIn(productDetailIds).stream()
+                .collect(Collectors.toMap(ProductDetail::getProductDetailID, Function.identity()));
+        Set<Integer> productIds = productDetails.values().stream()
+                .map(productDetail -> productDetail.getProduct().getProductID())
+                .collect(Collectors.toSet());
+        Map<Integer, ProductPriceResponse> prices = promotionService.getProductPrices(productIds);
+
+        List<OverviewCartItemResponse> responses = new ArrayList<>(items.size());
+        for (CartItemDTO dto : items) {
+            ProductDetail productDetail = productDetails.get(dto.getProductDetail().getProductDetailID());
+            if (productDetail == null) {
+                throw new EntityNotFoundException("ProductDetail not found");
+            }
+            Product product = productDetail.getProduct();
+            ProductPriceResponse price = prices.get(product.getProductID());
+
+            OverviewCartItemResponse response = new OverviewCartItemResponse();
+            response.setCartItemDTO(dto);
+            response.setProductDetailDTO(productDetailMapper.toProductDetailsResponse(productDetail));
+            response.setProductDTO(productMapper.toDto(product));
+            response.setDiscountPrice(price != null ? price.getDiscountPrice() : product.getPrice());
+            response.setPromotion(price != null ? price.getPromotion() : null);
+            responses.add(response);
+        }
+        return responses;
+    }
+
     @Override
+    @Transactional
     public CartItemDTO addCartItem(int userId, CartItemDTO cartItemDTO) {
         log.info("Adding new cart item for userId: {}", userId);
-        String key = "cart:user:" + userId;
-        ProductDetail productDetail = productDetailRepository.findById(cartItemDTO.getProductDetail().getProductDetailID())
+        int productDetailId = cartItemDTO.getProductDetail().getProductDetailID();
+        ProductDetail productDetail = productDetailRepository.findById(productDetailId)
                 .orElseThrow(() -> new IllegalArgumentException("ProductDetail not found"));
         if (cartItemDTO.getQuantity() <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
-
-        Map<Object, Object> cart = redisTemplate.opsForHash().entries(key);
         Cart cartel = cartRepository.findCartByUserId(userId);
 
-        CartItemDTO existingItem = null;
-        for (Object value : cart.values()) {
-            CartItemDTO item = (CartItemDTO) value;
-            if (item.getProductDetail().getProductDetailID() == cartItemDTO.getProductDetail().getProductDetailID()) {
-                existingItem = item;
-                break;
+        long newQuantity = runLoaded(ADD, userId, String.valueOf(productDetailId),
+                String.valueOf(cartItemDTO.getQuantity()), String.valueOf(CART_TTL.toSeconds()));
+        if (newQuantity != MISSING) {
+            // Cộng dồn trong SQL để các request song song không ghi đè số lượng của nhau
+            if (cartItemRepository.incrementQuantity(cartel.getCartID(), productDetailId, cartItemDTO.getQuantity()) == 0) {
+                throw new EntityNotFoundException("CartItem not found");
             }
-        }
-
-        if (existingItem != null) {
-            int newQuantity = existingItem.getQuantity() + cartItemDTO.getQuantity();
-            existingItem.setQuantity(newQuantity);
-            redisTemplate.opsForHash().put(key, String.valueOf(existingItem.getCartItemID()), existingItem);
-
-            CartItem cartItem = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), existingItem.getProductDetail().getProductDetailID())
+            CartItem cartItem = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), productDetailId)
                     .orElseThrow(() -> new EntityNotFoundException("CartItem not found"));
-            cartItem.setQuantity(newQuantity);
-            cartItemRepository.save(cartItem);
+            CartItemDTO existingItem = cartItemMapper.toCartItemDTO(cartItem);
             log.info("Updated quantity for existing cart item: {}", existingItem);
             return existingItem;
-        } else {
-            CartItem cartItem = new CartItem();
-            cartItem.setCart(cartel);
-            cartItem.setProductDetail(productDetail);
-            cartItem.setQuantity(cartItemDTO.getQuantity());
-            CartItem savedCartItem = cartItemRepository.save(cartItem);
-            CartItemDTO item = cartItemMapper.toCartItemDTO(savedCartItem);
-            redisTemplate.opsForHash().put(key, String.valueOf(item.getCartItemID()), item);
-            log.info("Created new cart item: {}", item);
-            redisTemplate.expire(key, 24, TimeUnit.HOURS); // TTL 24h
-            return item;
         }
-    }
-
-
 
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cartel);
+        cartItem.setProductDetail(productDetail);
+        cartItem.setQuantity(cartItemDTO.getQuantity());
+        CartItem savedCartItem = cartItemRepository.save(cartItem);
+        CartItemDTO item = cartItemMapper.toCartItemDTO(savedCartItem);
+        storeItems(userId, List.of(item));
+        log.info("Created new cart item: {}", item);
+        return item;
+    }
 
     @Override
     public CartItemDTO getCartItemById(int userId, int cartItemId) {
         log.info("Fetching cart item by id: {} for userId: {}", cartItemId, userId);
-        String key = "cart:user:" + userId;
-        Map<Object, Object> cart = redisTemplate.opsForHash().entries(key);
-        CartItemDTO cartItemDTO = cart.values().stream()
-                .map(obj -> (CartItemDTO) obj)
-                .filter(dto -> dto.getCartItemID() == cartItemId)
-                .findFirst()
-                .orElse(null);
-
-        if (cartItemDTO == null) {
-            CartItem cartItem = cartItemRepository.findById(cartItemId)
-                    .orElseThrow(() -> new EntityNotFoundException("CartItem not found with id: " + cartItemId));
-            if (cartItem.getCart().getUser().getUserID() != userId) {
-                throw new SecurityException("Unauthorized access to cart item");
+        List<?> found = run(GET, userId, String.valueOf(cartItemId));
+        if (found == null || found.isEmpty()) {
+            loadCartFromDatabase(userId);
+            found = run(GET, userId, String.valueOf(cartItemId));
+        }
+        if (found != null && !found.isEmpty() && found.get(0) instanceof CartItemDTO item) {
+            if (found.get(1) instanceof Number quantity) {
+                item.setQuantity(quantity.intValue());
             }
-            cartItemDTO = cartItemMapper.toCartItemDTO(cartItem);
-            redisTemplate.opsForHash().put(key, String.valueOf(cartItemDTO.getCartItemID()), cartItemDTO);
-            redisTemplate.expire(key, 24, TimeUnit.HOURS);
+            return item;
         }
 
+        CartItem cartItem = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new EntityNotFoundException("CartItem not found with id: " + cartItemId));
+        if (cartItem.getCart().getUser().getUserID() != userId) {
+            throw new SecurityException("Unauthorized access to cart item");
+        }
+        CartItemDTO cartItemDTO = cartItemMapper.toCartItemDTO(cartItem);
+        storeItems(userId, List.of(cartItemDTO));
         return cartItemDTO;
     }
 
     @Override
     public CartItemDTO updateQuantity(int userId, int cartItemId, int quantity) {
         log.info("Updating cart item id: {} with new quantity: {} for userId: {}", cartItemId, quantity, userId);
-        String key = "cart:user:" + userId;
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
-        Map<Object, Object> cart = redisTemplate.opsForHash().entries(key);
-        CartItemDTO cartItemDTO = cart.values().stream()
-                .map(obj -> (CartItemDTO) obj)
-                .filter(dto -> dto.getCartItemID() == cartItemId)
-                .findFirst()
-                .orElse(null);
-
-        if (cartItemDTO == null) {
-            CartItem cartItem = cartItemRepository.findById(cartItemId)
+        long productDetailId = runLoaded(SET_QUANTITY, userId, String.valueOf(cartItemId),
+                String.valueOf(quantity), String.valueOf(CART_TTL.toSeconds()));
+
+        CartItem cartItem;
+        if (productDetailId != MISSING) {
+            Cart cartel = cartRepository.findCartByUserId(userId);
+            cartItem = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), (int) productDetailId)
+                    .orElseThrow(() -> new EntityNotFoundException("CartItem not found with id: " + cartItemId));
+        } else {
+            cartItem = cartItemRepository.findById(cartItemId)
                     .orElseThrow(() -> new EntityNotFoundException("CartItem not found with id: " + cartItemId));
             if (cartItem.getCart().getUser().getUserID() != userId) {
                 throw new SecurityException("Unauthorized access to cart item");
             }
-            cartItemDTO = cartItemMapper.toCartItemDTO(cartItem);
         }
-        cartItemDTO.setQuantity(quantity);
-        redisTemplate.opsForHash().put(key, String.valueOf(cartItemDTO.getCartItemID()), cartItemDTO);
-        redisTemplate.expire(key, 24, TimeUnit.HOURS);
-        Cart cartel = cartRepository.findCartByUserId(userId);
-        CartItem cartItem1 = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), cartItemDTO.getProductDetail().getProductDetailID()).get();
-        cartItem1.setQuantity(cartItemDTO.getQuantity());
-        cartItemRepository.save(cartItem1);
+        cartItem.setQuantity(quantity);
+        cartItemRepository.save(cartItem);
+        CartItemDTO cartItemDTO = cartItemMapper.toCartItemDTO(cartItem);
+        if (productDetailId == MISSING) {
+            storeItems(userId, List.of(cartItemDTO));
+        }
         log.info("Cart item updated successfully: {}", cartItemDTO);
         return cartItemDTO;
     }
@@ -192,18 +261,11 @@ public class CartItemServiceImpl implements CartItemService {
     @Override
     public void deleteCartItem(int userId, int cartItemId) {
         log.info("Deleting cart item with id: {} for userId: {}", cartItemId, userId);
-        String key = "cart:user:" + userId;
-        Map<Object, Object> cart = redisTemplate.opsForHash().entries(key);
-        CartItemDTO cartItemDTO = cart.values().stream()
-                .map(obj -> (CartItemDTO) obj)
-                .filter(dto -> dto.getCartItemID() == cartItemId)
-                .findFirst()
-                .orElse(null);
-
-        if (cartItemDTO != null) {
-            redisTemplate.opsForHash().delete(key, String.valueOf(cartItemDTO.getCartItemID()));
+        long productDetailId = runLoaded(REMOVE, userId, String.valueOf(cartItemId));
+
+        if (productDetailId != MISSING) {
             Cart cartel = cartRepository.findCartByUserId(userId);
-            CartItem cartItem1 = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), cartItemDTO.getProductDetail().getProductDetailID())
+            CartItem cartItem1 = cartItemRepository.findByCartIdAndProductDetailId(cartel.getCartID(), (int) productDetailId)
                     .orElseThrow(() -> new EntityNotFoundException("CartItem not found for delete"));
             cartItemRepository.delete(cartItem1);
             log.info("Cart item deleted successfully: {}", cartItemId);
@@ -244,20 +306,84 @@ public class CartItemServiceImpl implements CartItemService {
 //        }
 //    }
 
-    public void loadCartFromDatabase(int userId) {
+    public List<CartItemDTO> loadCartFromDatabase(int userId) {
         log.info("Loading cart from database for userId: {}", userId);
-        String key = "cart:user:" + userId;
-
         Cart cart = cartRepository.findCartByUserId(userId);
         if (cart == null) {
+            return new ArrayList<>();
+        }
+
+        List<CartItemDTO> items = cartItemRepository.findCartItemsByCartId(cart.getCartID()).stream()
+                .map(cartItemMapper::toCartItemDTO)
+                .collect(Collectors.toList());
+        storeItems(userId, items);
+        return items;
+    }
+
+    private List<CartItemDTO> readCart(int userId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(itemsKey(userId));
+        List<CartItemDTO> items = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            if (value instanceof CartItemDTO item) {
+                if (fields.get(field + QUANTITY_SUFFIX) instanceof Number quantity) {
+                    item.setQuantity(quantity.intValue());
+                }
+                items.add(item);
+            }
+        });
+        return items;
+    }
+
+    // Ghi mọi dòng và gia hạn TTL trong một lần pipeline
+    private void storeItems(int userId, Collection<CartItemDTO> items) {
+        if (items.isEmpty()) {
             return;
         }
+        Map<String, Object> itemFields = new HashMap<>();
+        Map<String, Object> idFields = new HashMap<>();
+        for (CartItemDTO item : items) {
+            int productDetailId = item.getProductDetail().getProductDetailID();
+            itemFields.put(String.valueOf(productDetailId), item);
+            itemFields.put(productDetailId + QUANTITY_SUFFIX, item.getQuantity());
+            idFields.put(String.valueOf(item.getCartItemID()), productDetailId);
+        }
+        String itemsKey = itemsKey(userId);
+        String idsKey = idsKey(userId);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> cart = (RedisOperations<String, Object>) operations;
+                cart.opsForHash().putAll(itemsKey, itemFields);
+                cart.opsForHash().putAll(idsKey, idFields);
+                cart.expire(itemsKey, CART_TTL);
+                cart.expire(idsKey, CART_TTL);
+                return null;
+            }
+        });
+    }
 
-        List<CartItem> cartItems = cartItemRepository.findCartItemsByCartId(cart.getCartID());
-        for (CartItem cartItem : cartItems) {
-            CartItemDTO item = cartItemMapper.toCartItemDTO(cartItem);
-            redisTemplate.opsForHash().put(key, String.valueOf(item.getCartItemID()), item);
+    // Giỏ đã hết hạn trong Redis: nạp lại từ DB rồi chạy lại script một lần
+    private long runLoaded(RedisScript<Long> script, int userId, String... args) {
+        Long result = run(script, userId, args);
+        if (result != null && result == NOT_LOADED) {
+            loadCartFromDatabase(userId);
+            result = run(script, userId, args);
         }
-        redisTemplate.expire(key, 24, TimeUnit.HOURS);
+        return result == null || result < 0 ? MISSING : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T run(RedisScript<T> script, int userId, String... args) {
+        return redisTemplate.execute(script, ARGS, (RedisSerializer<T>) redisTemplate.getHashValueSerializer(),
+                List.of(itemsKey(userId), idsKey(userId)), (Object[]) args);
+    }
+
+    private static String itemsKey(int userId) {
+        return "cart:user:{" + userId + "}:items";
+    }
+
+    private static String idsKey(int userId) {
+        return "cart:user:{" + userId + "}:ids";
     }
-}
\ No newline at end of file
+}
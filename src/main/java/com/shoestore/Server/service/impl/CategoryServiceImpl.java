@@ -1,11 +1,13 @@
 package com.shoestore.Server.service.impl;
 
+import com.shoestore.Server.cache.CacheNames;
 import com.shoestore.Server.dto.request.CategoryDTO;
 import com.shoestore.Server.entities.Category;
 import com.shoestore.Server.mapper.CategoryMapper;
 import com.shoestore.Server.repositories.CategoryRepository;
 import com.shoestore.Server.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,6 +25,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CATEGORY, unless = "#result == null")
     public CategoryDTO getCategory(int id) {
         log.info("Fetching category with ID: {}", id);
         Category category = categoryRepository.findByCategoryID(id);
@@ -30,15 +33,16 @@ public class CategoryServiceImpl implements CategoryService {
             log.warn("Category not found with ID: {}", id);
             return null;
         }
-        return categoryMapper.toDto(category);
+        return categoryMapper.toSummaryDto(category);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.CATEGORIES, sync = true)
     public List<CategoryDTO> getAllCategories() {
         log.info("Fetching all categories from database.");
         List<CategoryDTO> categories = categoryRepository.findAll()
                 .stream()
-                .map(categoryMapper::toDto)
+                .map(categoryMapper::toSummaryDto)
                 .collect(Collectors.toList());
         log.info("Found {} categories.", categories.size());
         return categories;
@@ -128,7 +128,7 @@ public class EmailServiceImpl implements EmailService {
     @Retry(name = "mailSendRetry", fallbackMethod = "fallbackSendOrderStatusEmail")
     public void sendOrderStatusEmail(int orderId, OrderStatus status) {
         try {
-            Order order = orderRepository.findById(orderId)
+            Order order = orderRepository.findWithDetailsByOrderID(orderId)
                     .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
 
             MimeMessage msg = mailSender.createMimeMessage();
@@ -5,14 +5,19 @@ import com.shoestore.Server.dto.request.UpdateOrderDetailRequest;
 import com.shoestore.Server.dto.response.PlacedOrderDetailsResponse;
 import com.shoestore.Server.entities.*;
 import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.RedemptionType;
 import com.shoestore.Server.enums.Size;
+import com.shoestore.Server.events.ProductChangedEvent;
+import com.shoestore.Server.exception.BadRequestException;
 import com.shoestore.Server.mapper.OrderDetailMapper;
 import com.shoestore.Server.mapper.ProductDetailMapper;
 import com.shoestore.Server.repositories.*;
 import com.shoestore.Server.service.OrderDetailService;
+import com.shoestore.Server.service.RedemptionService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -28,7 +33,8 @@ public class OrderDetailServiceImpl implements OrderDetailService {
     private final ProductDetailRepository productDetailRepository;
     private final ProductDetailMapper productDetailMapper;
     private final PromotionRepository promotionRepository;
-    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RedemptionService redemptionService;
 
     @Override
     public OrderDetailDTO save(OrderDetailDTO orderDetailDTO) {
@@ -45,12 +51,41 @@ public class OrderDetailServiceImpl implements OrderDetailService {
                     log.error("Product detail not found with ID: {}", orderDetailDTO.getProductDetail().getProductDetailID());
                     return new RuntimeException("Product detail not found");
                 });
+        Promotion promotion = null;
         if (orderDetailDTO.getPromotion() != null) {
-            Promotion promotion = promotionRepository.findById(orderDetailDTO.getPromotion().getPromotionID())
+            promotion = promotionRepository.findById(orderDetailDTO.getPromotion().getPromotionID())
                     .orElseThrow(() -> {
                         log.error("Promotion not found with ID: {}", orderDetailDTO.getPromotion().getPromotionID());
                         return new RuntimeException("Promotion detail not found");
                     });
+        }
+
+        // Mỗi đơn chỉ tính một lượt dùng cho mỗi khuyến mãi: token theo đơn nên các dòng sau không giữ chỗ thêm
+        String redemptionToken = promotion != null ? RedemptionService.orderToken(order.getOrderID()) : null;
+        if (redemptionToken != null
+                && !redemptionService.reserve(RedemptionType.PROMOTION, promotion.getPromotionID(), redemptionToken)) {
+            throw new BadRequestException("Promotion usage limit reached");
+        }
+
+        OrderDetail savedOrderDetail;
+        try {
+            savedOrderDetail = saveLine(orderDetailDTO, orderDetail, order, productDetail, promotion);
+        } catch (RuntimeException e) {
+            if (redemptionToken != null) {
+                redemptionService.release(RedemptionType.PROMOTION, promotion.getPromotionID(), redemptionToken);
+            }
+            throw e;
+        }
+        if (redemptionToken != null) {
+            redemptionService.confirm(RedemptionType.PROMOTION, promotion.getPromotionID(), redemptionToken);
+        }
+        log.info("Order detail saved successfully with ID: {}", savedOrderDetail.getOrderDetailID());
+        return orderDetailMapper.toDto(savedOrderDetail);
+    }
+
+    private OrderDetail saveLine(OrderDetailDTO orderDetailDTO, OrderDetail orderDetail, Order order,
+                                 ProductDetail productDetail, Promotion promotion) {
+        if (promotion != null) {
             orderDetail.setPromotion(promotion);
             if (promotion.getGiftProduct()!=null){
                 ProductDetail giftProductDetail = productDetailRepository.findById(orderDetailDTO.getGiftProductDetail().getProductDetailID())
@@ -66,6 +101,7 @@ public class OrderDetailServiceImpl implements OrderDetailService {
                 }
                 giftProductDetail.setStockQuantity(giftProductDetail.getStockQuantity() - 1);
                 productDetailRepository.save(giftProductDetail);
+                eventPublisher.publishEvent(ProductChangedEvent.updated(giftProductDetail.getProduct().getProductID()));
 
                 orderDetail.setGiftProductDetail(giftProductDetail);
                 orderDetail.setGiftedQuantity(1);
@@ -81,12 +117,11 @@ public class OrderDetailServiceImpl implements OrderDetailService {
         }
         productDetail.setStockQuantity(productDetail.getStockQuantity() - quantityToBuy);
         productDetailRepository.save(productDetail);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(productDetail.getProduct().getProductID()));
         orderDetail.setOrder(order);
         orderDetail.setProductDetail(productDetail);
 
-        OrderDetail savedOrderDetail = orderDetailRepository.save(orderDetail);
-        log.info("Order detail saved successfully with ID: {}", savedOrderDetail.getOrderDetailID());
-        return orderDetailMapper.toDto(savedOrderDetail);
+        return orderDetailRepository.save(orderDetail);
     }
 
     @Override
@@ -102,14 +137,14 @@ public class OrderDetailServiceImpl implements OrderDetailService {
     }
     @Override
     public PlacedOrderDetailsResponse mapToPlacedOrderDetailsResponse(OrderDetail orderDetail) {
-        ProductDetail productDetail = productDetailRepository.findById(orderDetail.getProductDetail().getProductDetailID())
-                .orElseThrow(() -> new EntityNotFoundException("Not found ProductDetail with id: " + orderDetail.getProductDetail().getProductDetailID()));
-        Product product = productRepository.findProductByProductDetailId(productDetail.getProductDetailID());
+        // Dùng trực tiếp các quan hệ (được nạp theo lô nhờ default_batch_fetch_size) thay vì truy vấn lại từng dòng
+        ProductDetail productDetail = orderDetail.getProductDetail();
+        if (productDetail == null) {
+            throw new EntityNotFoundException("Not found ProductDetail for OrderDetail id: " + orderDetail.getOrderDetailID());
+        }
         if (orderDetail.getGiftProductDetail()!=null) {
-            ProductDetail giftProductDetail = productDetailRepository.findById(orderDetail.getGiftProductDetail().getProductDetailID())
-                    .orElseThrow(() -> new EntityNotFoundException("Not found ProductDetail with id: " + orderDetail.getGiftedQuantity()));
-
-            Product giftProduct = productRepository.findProductByProductDetailId(giftProductDetail.getProductDetailID());
+            ProductDetail giftProductDetail = orderDetail.getGiftProductDetail();
+            Product giftProduct = giftProductDetail.getProduct();
 
             return new PlacedOrderDetailsResponse(
                     orderDetail.getOrderDetailID(),
@@ -4,24 +4,31 @@ import com.shoestore.Server.dto.request.*;
 import com.shoestore.Server.dto.response.*;
 import com.shoestore.Server.entities.*;
 import com.shoestore.Server.enums.OrderStatus;
+import com.shoestore.Server.events.OrderCanceledEvent;
+import com.shoestore.Server.events.OrderDeliveredEvent;
+import com.shoestore.Server.events.ProductChangedEvent;
 import com.shoestore.Server.enums.PaymentMethod;
+import com.shoestore.Server.enums.RedemptionType;
 import com.shoestore.Server.exception.BadRequestException;
 import com.shoestore.Server.exception.NotFoundException;
 import com.shoestore.Server.mapper.OrderDetailMapper;
 import com.shoestore.Server.mapper.OrderMapper;
 import com.shoestore.Server.mapper.OrderStatusHistoryMapper;
+import com.shoestore.Server.mapper.PaymentMapper;
 import com.shoestore.Server.repositories.*;
 import com.shoestore.Server.service.OrderDetailService;
 import com.shoestore.Server.service.OrderService;
 import com.shoestore.Server.service.PaginationService;
-import com.shoestore.Server.service.PaymentService;
+import com.shoestore.Server.service.RedemptionService;
 import com.shoestore.Server.specifications.OrderSpecification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,22 +39,29 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
+    // Giống @EntityGraph của OrderRepository.findAll(spec, pageable), dùng cho truy vấn scroll
+    private static final List<String> ORDER_LIST_FETCH = List.of("user", "user.cart", "voucher", "payment", "receipt");
+
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
     private final VoucherRepository voucherRepository;
     private final UserRepository userRepository;
     private final PaginationService paginationService;
     private final OrderDetailService orderDetailService;
-    private final PaymentService paymentService;
+    private final OrderDetailRepository orderDetailRepository;
     private final OrderStatusHistoryRepository orderStatusHistoryRepository;
     private final OrderStatusHistoryMapper orderStatusHistoryMapper;
     private final ProductDetailRepository productDetailRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentMapper paymentMapper;
+    private final RedemptionService redemptionService;
     @Override
     public List<OrderDTO> getAllOrders() {
         log.info("Fetching all orders...");
@@ -70,6 +84,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         Order order = optionalOrder.get();
+        OrderStatus previousStatus = order.getStatus();
 
         try {
             OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
@@ -80,6 +95,11 @@ public class OrderServiceImpl implements OrderService {
         }
 
         orderRepository.save(order);
+        if (order.getStatus() == OrderStatus.DELIVERED) {
+            eventPublisher.publishEvent(new OrderDeliveredEvent(orderId));
+        } else if (order.getStatus() == OrderStatus.CANCELED && previousStatus != OrderStatus.CANCELED) {
+            publishCanceled(order);
+        }
         log.info("Updated Order ID {} status to {}", orderId, status);
 
         return orderMapper.toDto(order);
@@ -98,6 +118,7 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional
     public OrderDTO addOrder(OrderDTO orderDTO) {
         log.info("Adding new order for User ID: {}", orderDTO.getUser().getUserID());
         Order order = orderMapper.toEntity(orderDTO);
@@ -119,13 +140,24 @@ public class OrderServiceImpl implements OrderService {
                 });
 
         order.setUser(user);
+
         Order savedOrder = orderRepository.save(order);
+        // Lượt dùng voucher gắn với mã đơn để hoàn lại khi hủy; hết lượt thì giao dịch rollback cả đơn
+        if (order.getVoucher() != null) {
+            int voucherId = order.getVoucher().getVoucherID();
+            String redemptionToken = RedemptionService.orderToken(savedOrder.getOrderID());
+            if (!redemptionService.reserve(RedemptionType.VOUCHER, voucherId, redemptionToken)) {
+                throw new BadRequestException("Voucher usage limit reached");
+            }
+            redemptionService.confirm(RedemptionType.VOUCHER, voucherId, redemptionToken);
+        }
         log.info("Order added successfully with ID: {}", savedOrder.getOrderID());
 
         return orderMapper.toDto(savedOrder);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PlacedOrderResponse> getOrderByByUser(int userId) {
         log.info("Fetching orders for User ID: {}", userId);
 
@@ -140,14 +172,16 @@ public class OrderServiceImpl implements OrderService {
                     OrderResponse orderResponse = orderMapper.toResponse(order);
 
                     List<OrderStatusHistoryResponse> canceledHistory = orderStatusHistoryMapper.toListResponse(
-                            orderStatusHistoryRepository.findByOrder_OrderIDAndStatus(orderId, OrderStatus.CANCELED)
+                            order.getStatusHistory().stream()
+                                    .filter(history -> history.getStatus() == OrderStatus.CANCELED)
+                                    .toList()
                     );
                     orderResponse.setStatusHistory(canceledHistory.isEmpty() ? null : canceledHistory);
 
                     return new PlacedOrderResponse(
                             orderResponse,
                             orderDetails,
-                            paymentService.getPaymentByOrderId(orderId)
+                            order.getPayment() != null ? paymentMapper.toPaymentResponse(order.getPayment()) : null
                     );
                 })
                 .collect(Collectors.toList());
@@ -326,6 +360,18 @@ public class OrderServiceImpl implements OrderService {
         return paginationService.paginate(orderDtoPage);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaginationResponse<OrderDTO> getAllOrdersScrolled(String cursor, int pageSize) {
+        Sort sort = Sort.by("orderID");
+        Window<Order> orders = orderRepository.findBy(Specification.<Order>where(null), query -> query
+                .project(ORDER_LIST_FETCH)
+                .sortBy(sort)
+                .limit(pageSize)
+                .scroll(paginationService.resolveCursor(cursor, sort)));
+        return paginationService.paginate(orders.map(orderMapper::toDto), pageSize);
+    }
+
     @Override
     public PaginationResponse<OrderDTO> getOrdersByDay(int page, int pageSize) {
         LocalDate today = LocalDate.now();
@@ -367,10 +413,35 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PaginationResponse<OrderResponse> filterOrders(
             String status, String query, LocalDate from, LocalDate to,
             int page, int pageSize, String sort, String mode) {
 
+        Pageable pageable = PageRequest.of(page - 1, pageSize, resolveFilterSort(sort));
+        Page<Order> orders = orderRepository.findAll(buildFilterSpecification(status, query, from, to, mode), pageable);
+
+        return paginationService.paginate(orders.map(orderMapper::toResponse));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginationResponse<OrderResponse> filterOrdersScrolled(
+            String status, String query, LocalDate from, LocalDate to,
+            String cursor, int pageSize, String sort, String mode) {
+
+        // orderID ở cuối sort để khóa keyset là duy nhất
+        Sort keyset = resolveFilterSort(sort).and(Sort.by(Sort.Direction.ASC, "orderID"));
+        Window<Order> orders = orderRepository.findBy(buildFilterSpecification(status, query, from, to, mode), q -> q
+                .project(ORDER_LIST_FETCH)
+                .sortBy(keyset)
+                .limit(pageSize)
+                .scroll(paginationService.resolveCursor(cursor, keyset)));
+
+        return paginationService.paginate(orders.map(orderMapper::toResponse), pageSize);
+    }
+
+    private Specification<Order> buildFilterSpecification(String status, String query, LocalDate from, LocalDate to, String mode) {
         LocalDate today = LocalDate.now();
         LocalDate startDate = from;
         LocalDate endDate = to;
@@ -397,30 +468,24 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
-        Sort sorting = switch (sort) {
-            case "newest" -> Sort.by(Sort.Direction.DESC, "orderDate");
-            case "oldest" -> Sort.by(Sort.Direction.ASC, "orderDate");
-            case "highestTotal" -> Sort.by(Sort.Direction.DESC, "total");
-            case "lowestTotal" -> Sort.by(Sort.Direction.ASC, "total");
-            default -> Sort.by(Sort.Direction.DESC, "orderDate");
-        };
-
-        Pageable pageable = PageRequest.of(page - 1, pageSize, sorting);
-
-        Specification<Order> spec = Specification
+        return Specification
                 .where(OrderSpecification.hasStatus(status))
                 .and(OrderSpecification.hasKeyword(query))
                 .and(OrderSpecification.hasDateFrom(startDate))
                 .and(OrderSpecification.hasDateTo(endDate));
+    }
 
-        Page<Order> orders;
-        if ("all".equals(mode)) {
-            orders = orderRepository.findAll(spec, pageable);
-        } else {
-            orders = orderRepository.findAll(spec, pageable);
+    private Sort resolveFilterSort(String sort) {
+        if (sort == null) {
+            return Sort.by(Sort.Direction.DESC, "orderDate");
         }
-
-        return paginationService.paginate(orders.map(orderMapper::toResponse));
+        return switch (sort) {
+            case "newest" -> Sort.by(Sort.Direction.DESC, "orderDate");
+            case "oldest" -> Sort.by(Sort.Direction.ASC, "orderDate");
+            case "highestTotal" -> Sort.by(Sort.Direction.DESC, "total");
+            case "lowestTotal" -> Sort.by(Sort.Direction.ASC, "total");
+            default -> Sort.by(Sort.Direction.DESC, "orderDate");
+        };
     }
 
     @Override
@@ -454,8 +519,10 @@ public class OrderServiceImpl implements OrderService {
             hist.setTrackingNumber(request.getTrackingNumber());
         } else if (newStatus == OrderStatus.CANCELED) {
             hist.setCancelReason(request.getCancelReason());
+            publishCanceled(order);
         } else if (newStatus == OrderStatus.DELIVERED) {
             hist.setDeliveredAt(LocalDateTime.now());
+            eventPublisher.publishEvent(new OrderDeliveredEvent(order.getOrderID()));
         }
 
         hist = orderStatusHistoryRepository.save(hist);
@@ -473,6 +540,12 @@ public class OrderServiceImpl implements OrderService {
 
 
 
+    private void publishCanceled(Order order) {
+        Integer voucherId = order.getVoucher() != null ? order.getVoucher().getVoucherID() : null;
+        Set<Integer> promotionIds = Set.copyOf(orderDetailRepository.findPromotionIdsByOrderId(order.getOrderID()));
+        eventPublisher.publishEvent(new OrderCanceledEvent(order.getOrderID(), voucherId, promotionIds));
+    }
+
     private boolean isValidTransition(OrderStatus current, OrderStatus next) {
         return switch (current) {
             case PENDING -> next == OrderStatus.CONFIRMED || next == OrderStatus.CANCELED;
@@ -548,6 +621,7 @@ public class OrderServiceImpl implements OrderService {
                 order.getStatusHistory().add(history);
 
                 orderRepository.save(order);
+                publishCanceled(order);
             }
         }
     }
@@ -617,6 +691,7 @@ public class OrderServiceImpl implements OrderService {
             }
             productDetail.setStockQuantity(newStockQuantity);
             productDetailRepository.save(productDetail);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(productDetail.getProduct().getProductID()));
             log.info("Updated stock quantity for productDetail ID: {} to {}", productDetail.getProductDetailID(), newStockQuantity);
 
             ProductDetail giftProductDetail = detail.getGiftProductDetail();
@@ -628,6 +703,7 @@ public class OrderServiceImpl implements OrderService {
                 }
                 giftProductDetail.setStockQuantity(newGiftStockQuantity);
                 productDetailRepository.save(giftProductDetail);
+                eventPublisher.publishEvent(ProductChangedEvent.updated(giftProductDetail.getProduct().getProductID()));
                 log.info("Updated stock quantity for giftProductDetail ID: {} to {}", giftProductDetail.getProductDetailID(), newGiftStockQuantity);
             }
         }
@@ -650,6 +726,7 @@ public class OrderServiceImpl implements OrderService {
         order.getStatusHistory().add(history);
 
         orderRepository.save(order);
+        publishCanceled(order);
         log.info("Order ID {} canceled successfully by user ID: {}", orderCancelRequest.getOrderId(), orderCancelRequest.getUserId());
     }
 
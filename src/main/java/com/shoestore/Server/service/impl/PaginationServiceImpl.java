@@ -1,20 +1,49 @@
 package com.shoestore.Server.service.impl;
 
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.exception.BadRequestException;
 import com.shoestore.Server.service.PaginationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
+@Slf4j
 @Service
 public class PaginationServiceImpl implements PaginationService {
 
+    private static final String ENTRY_SEPARATOR = "|";
+    private static final String FIELD_SEPARATOR = "~";
+
+    @Value("${app.pagination.in-memory-warn-threshold:1000}")
+    private int inMemoryWarnThreshold;
+
     @Override
     public  <T> PaginationResponse<T> paginate(List<T> items, int page, int pageSize) {
         int totalItems = items.size();
+        if (totalItems > inMemoryWarnThreshold) {
+            log.warn("In-memory pagination over {} items (threshold {}); page this query in the database instead",
+                    totalItems, inMemoryWarnThreshold, new IllegalStateException("In-memory pagination call site"));
+        }
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
 
         if (page > totalPages) {
@@ -38,4 +67,79 @@ public class PaginationServiceImpl implements PaginationService {
     public  Pageable createPageable(int page, int pageSize) {
         return PageRequest.of(page - 1, pageSize);
     }
+
+    @Override
+    public <T> PaginationResponse<T> paginate(Window<T> window, int pageSize) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            ScrollPosition last = window.positionAt(window.size() - 1);
+            if (last instanceof KeysetScrollPosition keyset) {
+                nextCursor = encodeCursor(keyset.getKeys());
+            }
+        }
+        return new PaginationResponse<>(window.getContent(), -1, -1, 0, pageSize, nextCursor);
+    }
+
+    @Override
+    public ScrollPosition resolveCursor(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = decodeCursor(cursor);
+        List<String> expected = sort.stream().map(Sort.Order::getProperty).toList();
+        if (!new ArrayList<>(keys.keySet()).equals(expected)) {
+            throw new BadRequestException("Cursor does not match the requested sort");
+        }
+        if (keys.containsValue(null)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private Map<String, Object> decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String entry : raw.split("\\" + ENTRY_SEPARATOR)) {
+                String[] parts = entry.split(FIELD_SEPARATOR, 3);
+                keys.put(parts[0], decodeValue(parts[1].charAt(0), URLDecoder.decode(parts[2], StandardCharsets.UTF_8)));
+            }
+            return keys;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private String encodeCursor(Map<String, ?> keys) {
+        StringJoiner joiner = new StringJoiner(ENTRY_SEPARATOR);
+        keys.forEach((property, value) -> joiner.add(property + FIELD_SEPARATOR + typeOf(value) + FIELD_SEPARATOR
+                + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private char typeOf(Object value) {
+        // Giá trị null làm điều kiện keyset luôn sai và âm thầm kết thúc phân trang
+        if (value == null) throw new IllegalStateException("Keyset sort property must not be null");
+        if (value instanceof Integer) return 'i';
+        if (value instanceof Long) return 'l';
+        if (value instanceof Double) return 'd';
+        if (value instanceof BigDecimal) return 'b';
+        if (value instanceof LocalDate) return 'D';
+        if (value instanceof LocalDateTime) return 'T';
+        if (value instanceof String) return 's';
+        throw new IllegalStateException("Unsupported keyset value type: " + value.getClass());
+    }
+
+    private Object decodeValue(char type, String value) {
+        return switch (type) {
+            case 'i' -> Integer.valueOf(value);
+            case 'l' -> Long.valueOf(value);
+            case 'd' -> Double.valueOf(value);
+            case 'b' -> new BigDecimal(value);
+            case 'D' -> LocalDate.parse(value);
+            case 'T' -> LocalDateTime.parse(value);
+            case 's' -> value;
+            default -> throw new IllegalArgumentException("Unknown cursor value type: " + type);
+        };
+    }
 }
@@ -5,21 +5,26 @@ import com.shoestore.Server.dto.request.ProductDetailDTO;
 import com.shoestore.Server.dto.request.ProductDetailRequest;
 import com.shoestore.Server.dto.response.OverviewProductResponse;
 import com.shoestore.Server.dto.response.ProductDetailsResponse;
+import com.shoestore.Server.dto.response.ProductPriceResponse;
 import com.shoestore.Server.dto.response.PromotionResponse;
 import com.shoestore.Server.entities.Product;
 import com.shoestore.Server.entities.ProductDetail;
 
 import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.events.ProductChangedEvent;
 import com.shoestore.Server.enums.Size;
 import com.shoestore.Server.mapper.ProductDetailMapper;
 import com.shoestore.Server.mapper.ProductMapper;
 import com.shoestore.Server.repositories.ProductDetailRepository;
 import com.shoestore.Server.repositories.ProductRepository;
+import com.shoestore.Server.search.CatalogSnapshot;
+import com.shoestore.Server.search.CatalogSnapshotStore;
 import com.shoestore.Server.service.ProductDetailService;
 import com.shoestore.Server.service.ProductService;
 import com.shoestore.Server.service.PromotionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,10 +40,16 @@ public class ProductDetailServiceImpl implements ProductDetailService {
     private final ProductDetailMapper productDetailMapper;
     private final ProductRepository productRepository;
     private final PromotionService promotionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogSnapshotStore catalogSnapshotStore;
 
     @Override
     public List<ProductDetailsResponse> getByProductId(int productID) {
         log.info("Fetching product details for Product ID: {}", productID);
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        if (catalogSnapshotStore.isReady() && snapshot.contains(productID)) {
+            return snapshot.variants(productID);
+        }
 
         List<ProductDetail> productDetails = productDetailRepository.findByProduct_ProductID(productID);
         log.info("Found {} product details for Product ID: {}", productDetails.size(), productID);
@@ -64,14 +75,18 @@ public class ProductDetailServiceImpl implements ProductDetailService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public OverviewProductResponse getProductOverviewById(int productId) {
-        Product product = productRepository.findById(productId).orElse(null);
+        // một truy vấn cho sản phẩm + biến thể, giá/khuyến mãi lấy theo lô thay vì đọc lại sản phẩm
+        Product product = productRepository.findWithDetailsByProductID(productId).orElse(null);
         if (product == null) return null;
 
-        List<ProductDetailsResponse> productDetails = getByProductId(productId);
+        List<ProductDetailsResponse> productDetails = product.getProductDetails().stream()
+                .map(productDetailMapper::toResponse)
+                .toList();
         String categoryName = product.getCategory().getName();
         String brandName = product.getBrand().getName();
-        PromotionResponse promotion = promotionService.getPromotionByProductID(productId);
+        ProductPriceResponse price = promotionService.getProductPrices(List.of(productId)).get(productId);
 
         return new OverviewProductResponse(
                 productDetails,
@@ -80,8 +95,8 @@ public class ProductDetailServiceImpl implements ProductDetailService {
                 brandName,
                 product.getDescription(),
                 product.getPrice(),
-                promotionService.getDiscountedPrice(productId),
-                promotion
+                price != null ? price.getDiscountPrice() : product.getPrice(),
+                price != null ? price.getPromotion() : null
         );
     }
 
@@ -97,6 +112,7 @@ public class ProductDetailServiceImpl implements ProductDetailService {
             productDetail.setProduct(productOpt.get());
 
             ProductDetail savedDetail = productDetailRepository.save(productDetail);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(productId));
             return productDetailMapper.toResponse(savedDetail);
         }
 
@@ -116,6 +132,7 @@ public class ProductDetailServiceImpl implements ProductDetailService {
             detail.setStockQuantity(productDetailRequest.getStockQuantity());
 
             ProductDetail updatedDetail = productDetailRepository.save(detail);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(detail.getProduct().getProductID()));
             return productDetailMapper.toResponse(updatedDetail);
         }
 
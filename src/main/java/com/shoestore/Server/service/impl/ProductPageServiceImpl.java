@@ -0,0 +1,109 @@
+package com.shoestore.Server.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoestore.Server.dto.response.*;
+import com.shoestore.Server.exception.BadRequestException;
+import com.shoestore.Server.service.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Builds everything a product page needs in one call. The parts are independent reads,
+ * so they run concurrently on a small bounded pool, each in its own read-only transaction
+ * (there is no open-session-in-view on the worker threads). The pool is owned here rather than
+ * exposed as an {@link java.util.concurrent.Executor} bean, which would replace the executor
+ * used by {@code @Async} mail sending.
+ */
+@Slf4j
+@Service
+public class ProductPageServiceImpl implements ProductPageService {
+    private final ProductService productService;
+    private final ProductDetailService productDetailService;
+    private final ReviewService reviewService;
+    private final PromotionService promotionService;
+    private final ThreadPoolTaskExecutor productPageExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.product-page.max-review-page-size:50}")
+    private int maxReviewPageSize;
+
+    public ProductPageServiceImpl(ProductService productService, ProductDetailService productDetailService,
+                                  ReviewService reviewService, PromotionService promotionService,
+                                  PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                  @Value("${app.product-page.pool-size:8}") int poolSize,
+                                  @Value("${app.product-page.queue-capacity:200}") int queueCapacity) {
+        this.productService = productService;
+        this.productDetailService = productDetailService;
+        this.reviewService = reviewService;
+        this.promotionService = promotionService;
+        this.productPageExecutor = new ThreadPoolTaskExecutor();
+        this.productPageExecutor.setCorePoolSize(poolSize);
+        this.productPageExecutor.setMaxPoolSize(poolSize);
+        this.productPageExecutor.setQueueCapacity(queueCapacity);
+        this.productPageExecutor.setThreadNamePrefix("product-page-");
+        // hàng đợi đầy thì luồng request tự chạy phần việc thay vì từ chối
+        this.productPageExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.productPageExecutor.initialize();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        productPageExecutor.shutdown();
+    }
+
+    @Override
+    public ProductPageResponse getProductPage(int productId, int reviewPageSize) {
+        if (reviewPageSize < 1 || reviewPageSize > maxReviewPageSize) {
+            throw new BadRequestException("Review page size must be between 1 and " + maxReviewPageSize);
+        }
+        CompletableFuture<OverviewProductResponse> overview = fork(() -> productDetailService.getProductOverviewById(productId));
+        CompletableFuture<RatingSummaryResponse> rating = fork(() -> productService.getRatingSummary(productId));
+        CompletableFuture<PaginationResponse<ReviewResponse>> reviews = fork(() -> reviewService.getReviewsByProductId(productId, 1, reviewPageSize));
+        CompletableFuture<List<PromotionResponse>> promotions = fork(() -> promotionService.getAppliedPromotionsForProduct(productId));
+        CompletableFuture<List<SearchProductResponse>> related = fork(() -> productService.getRelatedProducts(productId));
+
+        try {
+            CompletableFuture.allOf(overview, rating, reviews, promotions, related).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (overview.join() == null) {
+            return null;
+        }
+        return new ProductPageResponse(overview.join(), rating.join(), reviews.join(), promotions.join(), related.join());
+    }
+
+    @Override
+    public String computeETag(ProductPageResponse page) {
+        try {
+            return "W/\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(page)) + "\"";
+        } catch (JsonProcessingException e) {
+            log.warn("Could not compute ETag for product page", e);
+            return null;
+        }
+    }
+
+    private <T> CompletableFuture<T> fork(Supplier<T> part) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> part.get()), productPageExecutor);
+    }
+}
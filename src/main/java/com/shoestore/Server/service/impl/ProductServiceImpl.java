@@ -2,34 +2,59 @@ package com.shoestore.Server.service.impl;
 
 import com.shoestore.Server.dto.request.ProductDTO;
 
+import com.shoestore.Server.dto.response.FacetCountsResponse;
 import com.shoestore.Server.dto.response.FeaturedProductResponse;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceHistogramResponse;
+import com.shoestore.Server.dto.response.RatingSummaryResponse;
+import com.shoestore.Server.dto.response.ProductPriceResponse;
 import com.shoestore.Server.dto.response.SearchProductResponse;
+import com.shoestore.Server.dto.response.SuggestionResponse;
 
 import com.shoestore.Server.entities.Product;
+import com.shoestore.Server.events.ProductChangedEvent;
+import com.shoestore.Server.exception.BadRequestException;
 
 import com.shoestore.Server.mapper.ProductMapper;
 import com.shoestore.Server.repositories.ProductDetailRepository;
 import com.shoestore.Server.repositories.ProductRepository;
-import com.shoestore.Server.repositories.ReviewRepository;
-import com.shoestore.Server.service.PaginationService;
 import com.shoestore.Server.service.ProductService;
 import com.shoestore.Server.service.PromotionService;
+import com.shoestore.Server.search.CatalogSnapshot;
+import com.shoestore.Server.search.CatalogSnapshotStore;
+import com.shoestore.Server.search.FeaturedProductLists;
+import com.shoestore.Server.search.ProductFacetIndex;
+import com.shoestore.Server.search.ProductPriceColumn;
+import com.shoestore.Server.search.ProductSearchCriteria;
+import com.shoestore.Server.search.ProductSearchDocument;
+import com.shoestore.Server.search.ProductSearchHits;
+import com.shoestore.Server.search.ProductSearchIndex;
+import com.shoestore.Server.search.RelatedProductsGraph;
+import com.shoestore.Server.search.SuggestionIndex;
 import com.shoestore.Server.specifications.ProductSpecification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,59 +62,132 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
-    private final PaginationService paginationService;
-    private final ReviewRepository reviewRepository;
     private final PromotionService promotionService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final RelatedProductsGraph relatedProductsGraph;
+    private final FeaturedProductLists featuredProductLists;
+    private final SuggestionIndex suggestionIndex;
+    private final ProductPriceColumn productPriceColumn;
+    private final CatalogSnapshotStore catalogSnapshotStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.search.admin-keyword-max-ids:500}")
+    private int maxKeywordIds;
 
     public List<SearchProductResponse> enhanceProductSearchResponses(List<SearchProductResponse> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        List<Integer> productIds = products.stream()
+                .map(SearchProductResponse::getProductID)
+                .toList();
+        Map<Integer, ProductPriceResponse> prices = promotionService.getProductPrices(productIds);
+
         for (SearchProductResponse p : products) {
-            p.setRating(getAverageRating(p.getProductID()));
-            p.setDiscountPrice(promotionService.getDiscountedPrice(p.getProductID()));
-            p.setPromotion(promotionService.getPromotionTypeByProductId(p.getProductID()));
-            p.setImage(p.getProductDetails().get(0).getImage());
+            ProductPriceResponse price = prices.get(p.getProductID());
+            if (price != null) {
+                p.setDiscountPrice(price.getDiscountPrice());
+                p.setPromotion(price.getPromotion());
+            } else {
+                p.setDiscountPrice(p.getPrice());
+            }
+            if (p.getProductDetails() != null && !p.getProductDetails().isEmpty()) {
+                p.setImage(p.getProductDetails().get(0).getImage());
+            }
         }
         return products;
     }
 
     @Override
     public PaginationResponse<SearchProductResponse> getAllProducts(int page, int pageSize) {
-        List<Product> products = productRepository.findAll();
-
-        PaginationResponse<Product> paginatedProducts = paginationService.paginate(products, page, pageSize);
-        List<SearchProductResponse> productDTOs = productMapper.toListProductSearchResponse(paginatedProducts.getItems());
+        if (page < 1 || pageSize < 1) {
+            throw new BadRequestException("Page and page size must be at least 1");
+        }
+        if (catalogSnapshotStore.isReady()) {
+            CatalogSnapshot snapshot = catalogSnapshotStore.current();
+            return new PaginationResponse<>(
+                    snapshot.toSearchResponses(snapshot.pageOfIds(page, pageSize)),
+                    snapshot.size(),
+                    (int) Math.ceil((double) snapshot.size() / pageSize),
+                    page,
+                    pageSize
+            );
+        }
+        Pageable pageable = PageRequest.of(page - 1, pageSize, Sort.by("productID"));
+        Page<Integer> productIds = productRepository.findAllProductIds(pageable);
+        List<SearchProductResponse> productDTOs = productMapper.toListProductSearchResponse(hydrate(productIds.getContent()));
 
         return new PaginationResponse<>(
                 enhanceProductSearchResponses(productDTOs),
-                paginatedProducts.getTotalElements(),
-                paginatedProducts.getTotalPages(),
-                paginatedProducts.getCurrentPage(),
-                paginatedProducts.getPageSize()
+                productIds.getTotalElements(),
+                productIds.getTotalPages(),
+                productIds.getNumber() + 1,
+                productIds.getSize()
         );
     }
 
+    @Override
+    public long countProducts() {
+        return productRepository.count();
+    }
+
     @Override
     public PaginationResponse<SearchProductResponse> getFilteredProducts(List<Integer> categoryIds, List<Integer> brandIds, List<String> colors, List<String> sizes,
                                                                          String keyword, Double minPrice, Double maxPrice, String sortBy, int page, int pageSize) {
-        Specification<Product> spec = buildProductSpecification(categoryIds, brandIds, colors, sizes, keyword, minPrice, maxPrice);
-        Pageable pageable = PageRequest.of(page - 1, pageSize, getSortOrder(sortBy));
-        Page<Product> pagedProducts = productRepository.findAll(spec, pageable);
-
-        List<SearchProductResponse> productDTOs = productMapper.toListProductSearchResponse(pagedProducts.getContent());
-
-        List<SearchProductResponse> uniqueProductDTOs = productDTOs.stream()
-                .distinct()
-                .collect(Collectors.toList());
+        if (page < 1 || pageSize < 1) {
+            throw new BadRequestException("Page and page size must be at least 1");
+        }
+        ProductSearchCriteria criteria = new ProductSearchCriteria(categoryIds, brandIds, colors, sizes, keyword, minPrice, maxPrice, sortBy);
+        ProductSearchHits hits = productSearchIndex.search(criteria, page, pageSize);
 
         return new PaginationResponse<>(
-                enhanceProductSearchResponses(uniqueProductDTOs),
-                pagedProducts.getTotalElements(),
-                pagedProducts.getTotalPages(),
-                pagedProducts.getNumber() + 1,
-                pagedProducts.getSize()
+                toSearchResponses(hits.productIds()),
+                hits.totalElements(),
+                (int) Math.ceil((double) hits.totalElements() / pageSize),
+                page,
+                pageSize
         );
     }
 
     @Override
+    public FacetCountsResponse getFacetCounts(List<Integer> categoryIds, List<Integer> brandIds, List<Integer> supplierIds,
+                                              List<String> colors, List<String> sizes, String keyword, Double minPrice, Double maxPrice) {
+        Set<Integer> base = productSearchIndex.matchTextAndPrice(keyword, minPrice, maxPrice);
+        return productFacetIndex.count(base, categoryIds, brandIds, supplierIds, colors, sizes);
+    }
+
+    // Không áp dụng minPrice/maxPrice để thanh trượt luôn hiển thị toàn bộ khoảng giá của bộ lọc hiện tại
+    @Override
+    public PriceHistogramResponse getPriceHistogram(List<Integer> categoryIds, List<Integer> brandIds, List<String> colors,
+                                                    List<String> sizes, String keyword, int buckets) {
+        Set<Integer> productIds = productSearchIndex.matchFilters(categoryIds, brandIds, colors, sizes, keyword);
+        return productPriceColumn.histogram(productIds, buckets);
+    }
+
+    // Đọc từ catalog snapshot; chỉ truy vấn DB khi snapshot chưa được dựng xong lúc khởi động
+    private List<SearchProductResponse> toSearchResponses(List<Integer> productIds) {
+        if (catalogSnapshotStore.isReady()) {
+            return catalogSnapshotStore.current().toSearchResponses(productIds);
+        }
+        return enhanceProductSearchResponses(productMapper.toListProductSearchResponse(hydrate(productIds)));
+    }
+
+    private List<Product> hydrate(List<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Product> productsById = productRepository.findAllWithDetailsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductID, Function.identity()));
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public PaginationResponse<ProductDTO> searchProducts(String status,
                                                          List<Integer> categoryIds,
                                                          List<Integer> brandIds,
@@ -117,7 +215,9 @@ public class ProductServiceImpl implements ProductService {
         }
 
         if (searchText != null && !searchText.trim().isEmpty()) {
-            spec = spec.and(ProductSpecification.hasName(searchText));
+            // LIKE trên productName như cũ, cộng thêm tối đa maxKeywordIds kết quả không dấu / gõ sai từ index
+            Specification<Product> byName = ProductSpecification.hasName(searchText);
+            spec = spec.and(byName.or(ProductSpecification.hasIds(productSearchIndex.matchKeyword(searchText, maxKeywordIds))));
         }
 
         if (stock != null && !stock.trim().isEmpty()) {
@@ -128,7 +228,10 @@ public class ProductServiceImpl implements ProductService {
 
         Page<Product> pagedProducts = productRepository.findAll(spec, pageable);
 
-        List<ProductDTO> productDTOs = productMapper.toDto(pagedProducts.getContent());
+        // nạp productDetails cho cả trang bằng một truy vấn thay vì mỗi sản phẩm một truy vấn
+        List<ProductDTO> productDTOs = productMapper.toDto(hydrate(pagedProducts.getContent().stream()
+                .map(Product::getProductID)
+                .toList()));
 
         return new PaginationResponse<>(
                 productDTOs,
@@ -139,48 +242,26 @@ public class ProductServiceImpl implements ProductService {
         );
     }
 
-    private Specification<Product> buildProductSpecification(List<Integer> categoryIds, List<Integer> brandIds, List<String> colors, List<String> sizes,
-                                                             String keyword, Double minPrice, Double maxPrice) {
-        return (root, query, criteriaBuilder) -> {
-            assert query != null;
-            query.distinct(true);
-            Specification<Product> spec = Specification.where(null);
-
-            if (categoryIds != null && !categoryIds.isEmpty())
-                spec = spec.and(ProductSpecification.hasCategories(categoryIds));
-            if (brandIds != null && !brandIds.isEmpty())
-                spec = spec.and(ProductSpecification.hasBrands(brandIds));
-            if (colors != null && !colors.isEmpty())
-                spec = spec.and(ProductSpecification.hasColors(colors));
-            if (sizes != null && !sizes.isEmpty())
-                spec = spec.and(ProductSpecification.hasSizes(sizes));
-            if (minPrice != null)
-                spec = spec.and(ProductSpecification.hasMinPrice(minPrice));
-            if (maxPrice != null)
-                spec = spec.and(ProductSpecification.hasMaxPrice(maxPrice));
-            if (keyword != null && !keyword.trim().isEmpty())
-                spec = spec.and(ProductSpecification.hasName(keyword));
-
-            return spec.toPredicate(root, query, criteriaBuilder);
-        };
-    }
-
-    private Sort getSortOrder(String sortBy) {
-        if (sortBy == null) return Sort.unsorted();
-        return switch (sortBy) {
-            case "Price: High-Low" -> Sort.by(Sort.Order.desc("price"));
-            case "Price: Low-High" -> Sort.by(Sort.Order.asc("price"));
-            case "Newest" -> Sort.by(Sort.Order.desc("createDate"));
-            default -> Sort.unsorted();
-        };
-    }
-
     public double getAverageRating(int id) {
-        return reviewRepository.getAverageRatingByProductId(id)
+        return productRepository.getAverageRatingByProductId(id)
                 .map(avg -> Math.round(avg * 2) / 2.0)
                 .orElse(0.0);
     }
 
+    @Override
+    public RatingSummaryResponse getRatingSummary(int productId) {
+        return productRepository.findById(productId)
+                .map(p -> new RatingSummaryResponse(
+                        Math.round(p.getAverageRating() * 2) / 2.0,
+                        p.getRatingCount(),
+                        p.getStar1Count(),
+                        p.getStar2Count(),
+                        p.getStar3Count(),
+                        p.getStar4Count(),
+                        p.getStar5Count()))
+                .orElse(null);
+    }
+
     @Override
     public ProductDTO getProductByProductDetailsId(int id) {
         Product product = productRepository.findProductByProductDetailId(id);
@@ -196,7 +277,10 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = productMapper.toEntity(productDTO);
+        // khuyến mãi được áp lại sau khi commit (ProductIndexSynchronizer)
+        product.setEffectivePrice(product.getPrice());
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(savedProduct.getProductID()));
         return productMapper.toDto(savedProduct);
     }
 
@@ -215,6 +299,7 @@ public class ProductServiceImpl implements ProductService {
 //            product.getImageURL().clear();
 //            product.getImageURL().addAll(productDTO.getImageURL());
             Product updatedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(id));
             return productMapper.toDto(updatedProduct);
         }
 
@@ -227,58 +312,62 @@ public class ProductServiceImpl implements ProductService {
     public boolean deleteProduct(int id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(ProductChangedEvent.removed(id));
             return true;
         }
         return false;
     }
 
     @Override
-    public List<SearchProductResponse> getRelatedProducts(int productId, int categoryId, int brandId) {
-        List<Product> relatedProducts = productRepository.findTop10ByCategory_CategoryIDAndProductIDNot(categoryId, productId);
-
-        if (relatedProducts.size() < 10) {
-            List<Product> brandProducts = productRepository.findTop10ByBrand_BrandIDAndProductIDNot(brandId, productId)
-                    .stream()
-                    .filter(p -> !relatedProducts.contains(p))
-                    .toList();
-            relatedProducts.addAll(brandProducts);
+    public List<SearchProductResponse> getRelatedProducts(int productId) {
+        ProductSearchDocument document = productSearchIndex.get(productId);
+        if (document == null) {
+            return null;
+        }
+        List<Integer> relatedIds = relatedProductsGraph.isReady()
+                ? relatedProductsGraph.related(productId)
+                : findRelatedProductIds(document);
+        return toSearchResponses(relatedIds);
+    }
+
+    @Override
+    public List<SuggestionResponse> getSuggestions(String query, int limit) {
+        return suggestionIndex.suggest(query, limit);
+    }
+
+    // Chỉ dùng khi graph chưa được RelatedProductsGraphJob dựng xong (ngay sau khi khởi động)
+    private List<Integer> findRelatedProductIds(ProductSearchDocument document) {
+        int productId = document.productId();
+        Set<Integer> relatedIds = new LinkedHashSet<>();
+        productRepository.findTop10ByCategory_CategoryIDAndProductIDNot(document.categoryId(), productId)
+                .forEach(p -> relatedIds.add(p.getProductID()));
+        if (relatedIds.size() < 10) {
+            productRepository.findTop10ByBrand_BrandIDAndProductIDNot(document.brandId(), productId)
+                    .forEach(p -> relatedIds.add(p.getProductID()));
         }
-        List<SearchProductResponse> productSearchResponse = productMapper.toListProductSearchResponse(relatedProducts.stream().limit(10).collect(Collectors.toList()));
-        return enhanceProductSearchResponses(productSearchResponse);
+        return relatedIds.stream().limit(10).toList();
     }
 
     @Override
     public List<FeaturedProductResponse> getBestSellingProduct() {
-        List<Object[]> rawResults = productRepository.findTopSellingProducts();
-        return rawResults.stream()
-                .map(row -> new FeaturedProductResponse(
-                        (int) row[0],
-                        (String) row[1],
-                        (String) row[2],
-                        (double) row[3],
-                        (long) row[4],
-                        (long) row[5],
-                        row[6] != null ? ((Timestamp) row[6]).toLocalDateTime() : null,
-                        (String) row[7]
-                ))
-                .collect(Collectors.toList());
+        return featuredProductLists.bestSellers();
     }
 
     @Override
     public List<FeaturedProductResponse> getNewArrivals() {
-        List<Object[]> rawResults = productRepository.findNewArrivals();
-        return rawResults.stream()
-                .map(row -> new FeaturedProductResponse(
-                        (int) row[0],
-                        (String) row[1],
-                        (String) row[2],
-                        (double) row[3],
-                        (long) row[4],
-                        (long) row[5],
-                        row[6] != null ? ((Timestamp) row[6]).toLocalDateTime() : null,
-                        (String) row[7]
-                ))
-                .collect(Collectors.toList());
+        return featuredProductLists.newArrivals();
     }
 
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updateEffectivePrices(Map<Integer, Double> effectivePrices) {
+        if (effectivePrices.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Double>> entries = new ArrayList<>(effectivePrices.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE product SET effectivePrice = ? WHERE productID = ?", entries, 1000, (ps, entry) -> {
+            ps.setDouble(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+        });
+    }
 }
@@ -2,6 +2,8 @@ package com.shoestore.Server.service.impl;
 
 import com.shoestore.Server.dto.request.PromotionDTO;
 import com.shoestore.Server.dto.response.PaginationResponse;
+import com.shoestore.Server.dto.response.PriceQuoteResponse;
+import com.shoestore.Server.dto.response.ProductPriceResponse;
 import com.shoestore.Server.dto.response.PromotionResponse;
 import com.shoestore.Server.entities.Category;
 import com.shoestore.Server.entities.Promotion;
@@ -9,17 +11,26 @@ import com.shoestore.Server.entities.Product;
 import com.shoestore.Server.enums.ApplicableTo;
 import com.shoestore.Server.enums.PromotionStatus;
 import com.shoestore.Server.enums.PromotionType;
+import com.shoestore.Server.events.PromotionChangedEvent;
+import com.shoestore.Server.exception.BadRequestException;
 import com.shoestore.Server.exception.NotFoundException;
 import com.shoestore.Server.mapper.PromotionMapper;
 import com.shoestore.Server.repositories.CategoryRepository;
 import com.shoestore.Server.repositories.PromotionRepository;
 import com.shoestore.Server.repositories.ProductRepository;
+import com.shoestore.Server.search.ProductSearchDocument;
+import com.shoestore.Server.search.ProductSearchIndex;
+import com.shoestore.Server.search.PromotionApplicabilityIndex;
+import com.shoestore.Server.search.PromotionResponses;
 import com.shoestore.Server.service.PaginationService;
 import com.shoestore.Server.service.PromotionService;
 import com.shoestore.Server.specifications.PromotionSpecification;
+import com.shoestore.Server.utils.PriceKernel;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,9 +42,17 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -46,6 +65,12 @@ public class PromotionServiceImpl implements PromotionService {
     private final ProductRepository productRepository;
     private final PaginationService paginationService;
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex productSearchIndex;
+    private final PromotionApplicabilityIndex promotionApplicabilityIndex;
+
+    @Value("${app.pricing.max-quote-ids:500}")
+    private int maxQuoteIds;
 
     @Override
     public double getDiscountedPrice(int productID) {
@@ -57,44 +82,59 @@ public class PromotionServiceImpl implements PromotionService {
         }
         Promotion promotion=promotionRepository.findById(product.getPromotion().getPromotionID())
                 .orElseThrow(() -> new RuntimeException("Promotion not found"));;
-        if (promotion.getStatus() != PromotionStatus.ACTIVE ||
-                promotion.getStartDate().isAfter(LocalDateTime.now()) ||
-                promotion.getEndDate().isBefore(LocalDateTime.now())) {
+        if (!isActive(promotion)) {
             log.info("Promotion is not currently active for Product ID: {}", productID);
             return product.getPrice();
         }
-        double originalPrice = product.getPrice();
-        double discountedPrice = originalPrice;
-        switch (promotion.getType()) {
-            case PERCENTAGE -> {
-                if (promotion.getDiscountValue() != null) {
-                    double discountPercent = promotion.getDiscountValue().doubleValue();
-                    discountedPrice -= originalPrice * (discountPercent / 100.0);
-                    log.info("Applied {}% discount. New price: {}", discountPercent, discountedPrice);
-                }
-            }
-            case FIXED -> {
-                if (promotion.getDiscountValue() != null) {
-                    double discountAmount = promotion.getDiscountValue().doubleValue();
-                    discountedPrice -= discountAmount;
-                    log.info("Applied fixed discount: {}đ. New price: {}", discountAmount, discountedPrice);
-                }
-            }
-            case BUYX,GIFT -> {
-                log.info("BUY_X_GET_Y promotion applicable. Handled in cart/order logic.");
-                return originalPrice;
-            }
-            default -> log.warn("Unknown promotion type for Product ID: {}", productID);
+        return applyPromotion(product.getPrice(), promotion);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, ProductPriceResponse> getProductPrices(Collection<Integer> productIds) {
+        Map<Integer, ProductPriceResponse> prices = new HashMap<>();
+        if (productIds == null || productIds.isEmpty()) {
+            return prices;
+        }
+        List<Object[]> rows = promotionRepository.findPriceAndPromotionIdByProductIds(productIds);
+        Set<Integer> promotionIds = rows.stream()
+                .map(row -> (Integer) row[2])
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Integer, Promotion> promotions = new HashMap<>();
+        if (!promotionIds.isEmpty()) {
+            promotionRepository.findWithCategoriesByIdIn(promotionIds)
+                    .forEach(promotion -> promotions.put(promotion.getPromotionID(), promotion));
+            // Nạp applicableProducts vào cùng persistence context để mapper không phải query lại
+            promotionRepository.findWithApplicableProductsByIdIn(promotionIds);
         }
-        if (promotion.getMaxDiscount() != null) {
-            double maxDiscount = promotion.getMaxDiscount().doubleValue();
-            double actualDiscount = originalPrice - discountedPrice;
-            if (actualDiscount > maxDiscount) {
-                discountedPrice = originalPrice - maxDiscount;
-                log.info("Max discount {}đ applied. Final price: {}", maxDiscount, discountedPrice);
+
+        Map<Integer, PromotionResponse> responses = new HashMap<>();
+        for (Object[] row : rows) {
+            int productId = (Integer) row[0];
+            double price = (Double) row[1];
+            Promotion promotion = row[2] != null ? promotions.get((Integer) row[2]) : null;
+            if (promotion == null || !isActive(promotion)) {
+                prices.put(productId, new ProductPriceResponse(productId, price, price, null));
+            } else {
+                PromotionResponse response = responses.computeIfAbsent(promotion.getPromotionID(),
+                        id -> promotionMapper.toResponse(promotion));
+                prices.put(productId, new ProductPriceResponse(productId, price, applyPromotion(price, promotion), response));
             }
         }
-        return Math.max(discountedPrice, 0.0);
+        return prices;
+    }
+
+    // PromotionLifecycleJob chuyển trạng thái theo startDate/endDate; kiểm tra endDate để không áp dụng quá hạn khi job chạy trễ
+    private boolean isActive(Promotion promotion) {
+        return promotion.getStatus() == PromotionStatus.ACTIVE
+                && (promotion.getEndDate() == null || promotion.getEndDate().isAfter(LocalDateTime.now()));
+    }
+
+    private double applyPromotion(double originalPrice, Promotion promotion) {
+        return PriceKernel.apply(PriceKernel.toDong(originalPrice), promotion.getType(),
+                PriceKernel.units(promotion.getType(), promotion.getDiscountValue()), PriceKernel.cap(promotion.getMaxDiscount()));
     }
 
     @Override
@@ -169,6 +209,7 @@ public class PromotionServiceImpl implements PromotionService {
 
         Promotion savedPromotion = promotionRepository.save(promotion);
         log.info("Promotion created successfully with ID: {}", savedPromotion.getPromotionID());
+        eventPublisher.publishEvent(PromotionChangedEvent.of(savedPromotion.getPromotionID()));
 
         return promotionMapper.toResponse(savedPromotion);
     }
@@ -219,6 +260,7 @@ public class PromotionServiceImpl implements PromotionService {
 
         Promotion updatedPromotion = promotionRepository.save(promotion);
         log.info("Promotion updated successfully with ID: {}", updatedPromotion.getPromotionID());
+        eventPublisher.publishEvent(PromotionChangedEvent.of(updatedPromotion.getPromotionID()));
 
         return promotionMapper.toResponse(updatedPromotion);
     }
@@ -228,6 +270,7 @@ public class PromotionServiceImpl implements PromotionService {
     @Transactional
     public void deletePromotion(int id) {
         promotionRepository.deleteById(id);
+        eventPublisher.publishEvent(PromotionChangedEvent.of(id));
     }
 
     @Override
@@ -284,133 +327,158 @@ public class PromotionServiceImpl implements PromotionService {
         return promotionRepository.countByStatus(PromotionStatus.ACTIVE);
     }
 
-    private List<Promotion> fetchAppliedPromotions(int productId) {
-        log.info("Fetching applied promotions for Product ID: {}", productId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException("Product not found with ID: " + productId));
+    private record PricedProduct(int productId, double price, int categoryId) {
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        List<Promotion> appliedPromotions = new ArrayList<>();
+    // Giá gốc và danh mục lấy từ chỉ mục tìm kiếm; chỉ xuống DB (một query) cho các sản phẩm chưa được lập chỉ mục
+    private Map<Integer, PricedProduct> pricedProducts(Collection<Integer> productIds) {
+        Map<Integer, PricedProduct> products = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer productId : productIds) {
+            if (productId == null || products.containsKey(productId)) continue;
+            ProductSearchDocument document = productSearchIndex.get(productId);
+            if (document != null) {
+                products.put(productId, new PricedProduct(productId, document.price(), document.categoryId()));
+            } else {
+                products.put(productId, null);
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : promotionRepository.findPriceAndCategoryIdByProductIds(missing)) {
+                int productId = (Integer) row[0];
+                products.put(productId, new PricedProduct(productId, (Double) row[1], row[2] != null ? (Integer) row[2] : 0));
+            }
+        }
+        products.values().removeIf(Objects::isNull);
+        return products;
+    }
 
-        List<Promotion> activePromotions = promotionRepository.findByStatusAndStartDateBeforeAndEndDateAfter(
-                PromotionStatus.ACTIVE, now, now);
+    private PricedProduct pricedProduct(int productId) {
+        PricedProduct product = pricedProducts(List.of(productId)).get(productId);
+        if (product == null) {
+            throw new NotFoundException("Product not found with ID: " + productId);
+        }
+        return product;
+    }
 
-        for (Promotion promo : activePromotions) {
-            if (promo.getApplicableTo() == ApplicableTo.ALL) {
-                appliedPromotions.add(promo);
-            } else if (promo.getApplicableTo() == ApplicableTo.CATEGORIES) {
-                if (promo.getCategories().contains(product.getCategory())) {
-                    appliedPromotions.add(promo);
-                }
-            } else if (promo.getApplicableTo() == ApplicableTo.PRODUCTS) {
-                if (promo.getApplicableProducts().contains(product)) {
-                    appliedPromotions.add(promo);
-                }
-            }
+    /**
+     * Tra cứu khuyến mãi đang áp dụng. Khi chỉ mục chưa sẵn sàng thì quét các khuyến mãi
+     * đang hoạt động một lần rồi dùng chung cho mọi sản phẩm.
+     */
+    private Function<PricedProduct, List<PromotionApplicabilityIndex.Entry>> promotionLookup() {
+        if (promotionApplicabilityIndex.isReady()) {
+            return product -> promotionApplicabilityIndex.applicable(product.productId(), product.categoryId());
         }
 
-        return appliedPromotions;
+        log.info("Promotion index not ready, scanning active promotions");
+        List<Promotion> activePromotions = promotionRepository.findByStatus(PromotionStatus.ACTIVE).stream()
+                .filter(this::isActive)
+                .toList();
+        Map<Integer, PromotionApplicabilityIndex.Entry> entries = new HashMap<>();
+        activePromotions.forEach(promo -> entries.put(promo.getPromotionID(),
+                PromotionApplicabilityIndex.Entry.of(promo, promotionMapper.toResponse(promo))));
+        return product -> {
+            List<PromotionApplicabilityIndex.Entry> appliedPromotions = new ArrayList<>();
+            for (Promotion promo : activePromotions) {
+                boolean applies = promo.getApplicableTo() == ApplicableTo.ALL
+                        || promo.getApplicableTo() == ApplicableTo.CATEGORIES && promo.getCategories().stream()
+                        .anyMatch(c -> c.getCategoryID() == product.categoryId())
+                        || promo.getApplicableTo() == ApplicableTo.PRODUCTS && promo.getApplicableProducts().stream()
+                        .anyMatch(p -> p.getProductID() == product.productId());
+                if (applies) {
+                    appliedPromotions.add(entries.get(promo.getPromotionID()));
+                }
+            }
+            return appliedPromotions;
+        };
     }
 
     @Override
     public List<PromotionResponse> getAppliedPromotionsForProduct(int productId) {
-        List<Promotion> appliedPromotions = fetchAppliedPromotions(productId);
-        return appliedPromotions.stream()
-                .map(promotionMapper::toResponse)
+        return promotionLookup().apply(pricedProduct(productId)).stream()
+                .map(promo -> PromotionResponses.copyOf(promo.response()))
                 .collect(Collectors.toList());
     }
 
     @Override
     public BigDecimal calculateFinalPriceWithPromotions(int productId) {
-        log.info("Calculating final price with promotions for Product ID: {}", productId);
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException("Product not found with ID: " + productId));
-
-        List<Promotion> appliedPromotions = fetchAppliedPromotions(productId);
-
-        BigDecimal originalPrice = BigDecimal.valueOf(product.getPrice());
-        BigDecimal finalPrice = originalPrice;
+        log.debug("Calculating final price with promotions for Product ID: {}", productId);
+        PricedProduct product = pricedProduct(productId);
+        return finalPrice(product.price(), promotionLookup().apply(product));
+    }
 
-        if (appliedPromotions.isEmpty()) {
-            log.info("No active promotions found for Product ID: {}", productId);
-            return finalPrice.setScale(2, RoundingMode.HALF_UP);
+    @Override
+    @Transactional(readOnly = true)
+    public List<PriceQuoteResponse> getPriceQuotes(Collection<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
         }
-
-        // Kiểm tra có promotion không cộng dồn không
-        boolean hasNonStackable = appliedPromotions.stream()
-                .anyMatch(promo -> promo.getStackable() == null || !promo.getStackable());
-
-        if (hasNonStackable) {
-            // Chỉ áp dụng promotion có số tiền giảm lớn nhất (tính trên originalPrice)
-            final BigDecimal basePrice = originalPrice;
-            Promotion bestPromotion = appliedPromotions.stream()
-                    .filter(promo -> promo.getDiscountValue() != null)
-                    .max(Comparator.comparing(promo -> calculateDiscountAmount(promo, basePrice)))
-                    .orElse(null);
-
-            if (bestPromotion != null) {
-                BigDecimal discountAmount = calculateDiscountAmount(bestPromotion, basePrice);
-                finalPrice = finalPrice.subtract(discountAmount);
-                log.info("Applied best promotion (non-stackable): {} - Discount amount: {}, New price: {}",
-                        bestPromotion.getName(), discountAmount, finalPrice);
-            }
-        } else {
-            // Cộng dồn promotions, mỗi promotion áp dụng trên finalPrice hiện tại
-            List<Promotion> sortedPromotions;
-            {
-                // Để dùng được biến trong lambda, cần final/effectively final biến này
-                final BigDecimal priceForSort = finalPrice;
-                sortedPromotions = appliedPromotions.stream()
-                        .filter(promo -> promo.getDiscountValue() != null)
-                        .sorted((p1, p2) -> calculateDiscountAmount(p2, priceForSort)
-                                .compareTo(calculateDiscountAmount(p1, priceForSort)))
-                        .collect(Collectors.toList());
-            }
-
-            for (Promotion promo : sortedPromotions) {
-                BigDecimal discountAmount = calculateDiscountAmount(promo, finalPrice);
-                finalPrice = finalPrice.subtract(discountAmount);
-                log.info("Applied stackable promotion: {} - Discount amount: {}, New price: {}",
-                        promo.getName(), discountAmount, finalPrice);
-
-                // Nếu đã về 0 thì dừng luôn, không âm giá
-                if (finalPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                    finalPrice = BigDecimal.ZERO;
-                    break;
-                }
-            }
+        if (productIds.size() > maxQuoteIds) {
+            throw new BadRequestException("At most " + maxQuoteIds + " product IDs can be quoted at once");
         }
+        Map<Integer, PricedProduct> products = pricedProducts(productIds);
+        Function<PricedProduct, List<PromotionApplicabilityIndex.Entry>> lookup = promotionLookup();
+
+        List<PriceQuoteResponse> quotes = new ArrayList<>(products.size());
+        for (PricedProduct product : products.values()) {
+            List<PromotionApplicabilityIndex.Entry> appliedPromotions = lookup.apply(product);
+            quotes.add(new PriceQuoteResponse(product.productId(),
+                    BigDecimal.valueOf(product.price()).setScale(2, RoundingMode.HALF_UP),
+                    finalPrice(product.price(), appliedPromotions),
+                    appliedPromotions.stream()
+                            .map(promo -> PromotionResponses.copyOf(promo.response()))
+                            .collect(Collectors.toList())));
+        }
+        return quotes;
+    }
 
-        finalPrice = finalPrice.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
-        log.info("Final price after all promotions for Product ID {}: {}", productId, finalPrice);
-        return finalPrice;
+    private BigDecimal finalPrice(double originalPrice, List<PromotionApplicabilityIndex.Entry> appliedPromotions) {
+        return BigDecimal.valueOf(PriceKernel.finalPrice(PriceKernel.toDong(originalPrice), appliedPromotions))
+                .setScale(2, RoundingMode.HALF_UP);
     }
 
-    /**
-     * Tính số tiền giảm thực tế cho từng promotion dựa vào loại (PERCENTAGE hoặc FIXED)
-     */
-    private BigDecimal calculateDiscountAmount(Promotion promo, BigDecimal currentPrice) {
-        if (promo == null || promo.getDiscountValue() == null || currentPrice == null) {
-            return BigDecimal.ZERO;
+    @Override
+    @Transactional
+    public Map<Integer, LocalDateTime> transitionStatuses(Collection<Integer> promotionIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = promotionIds == null
+                ? promotionRepository.findScheduleByStatusNot(PromotionStatus.EXPIRED)
+                : promotionIds.isEmpty() ? List.of() : promotionRepository.findScheduleByIdIn(promotionIds);
+
+        Map<PromotionStatus, List<Integer>> transitions = new EnumMap<>(PromotionStatus.class);
+        Map<Integer, LocalDateTime> nextTransitions = new HashMap<>();
+        for (Object[] row : rows) {
+            int promotionId = (Integer) row[0];
+            LocalDateTime startDate = (LocalDateTime) row[2];
+            LocalDateTime endDate = (LocalDateTime) row[3];
+            if (startDate == null || endDate == null) continue;
+
+            PromotionStatus status = now.isBefore(startDate) ? PromotionStatus.UPCOMING
+                    : now.isBefore(endDate) ? PromotionStatus.ACTIVE
+                    : PromotionStatus.EXPIRED;
+            if (status != row[1]) {
+                transitions.computeIfAbsent(status, k -> new ArrayList<>()).add(promotionId);
+            }
+            if (status == PromotionStatus.UPCOMING) {
+                nextTransitions.put(promotionId, startDate);
+            } else if (status == PromotionStatus.ACTIVE) {
+                nextTransitions.put(promotionId, endDate);
+            }
         }
-        String type = promo.getType().name();
-        BigDecimal discountValue = promo.getDiscountValue();
-
-        if ("PERCENTAGE".equalsIgnoreCase(type)) {
-            // Giới hạn tối đa 100%
-            BigDecimal cappedPercent = discountValue.min(BigDecimal.valueOf(100));
-            BigDecimal discountRate = cappedPercent.divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-            return currentPrice.multiply(discountRate).setScale(2, RoundingMode.HALF_UP);
-        } else if ("FIXED".equalsIgnoreCase(type)) {
-            // Không giảm quá giá hiện tại
-            return discountValue.min(currentPrice).setScale(2, RoundingMode.HALF_UP);
-        } else {
-            return BigDecimal.ZERO;
+
+        Set<Integer> changed = new HashSet<>();
+        transitions.forEach((status, ids) -> {
+            promotionRepository.updateStatus(ids, status);
+            changed.addAll(ids);
+            log.info("Promotions {} transitioned to {}", ids, status);
+        });
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new PromotionChangedEvent(changed));
         }
+        return nextTransitions;
     }
 
-
     @Override
     public PromotionResponse getPromotionTypeByProductId(int productID) {
         log.info("Fetching promotion info for Product ID: {}", productID);
@@ -418,10 +486,7 @@ public class PromotionServiceImpl implements PromotionService {
         Product product = productRepository.findById(productID)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         Promotion promotion = product.getPromotion();
-        if (promotion == null ||
-                promotion.getStatus() != PromotionStatus.ACTIVE ||
-                promotion.getStartDate().isAfter(LocalDateTime.now()) ||
-                promotion.getEndDate().isBefore(LocalDateTime.now())) {
+        if (promotion == null || !isActive(promotion)) {
             return null;
         }
         return promotionMapper.toResponse(promotion);
@@ -0,0 +1,255 @@
+package com.shoestore.Server.service.impl;
+
+import com.shoestore.Server.entities.Promotion;
+import com.shoestore.Server.entities.Voucher;
+import com.shoestore.Server.enums.RedemptionType;
+import com.shoestore.Server.events.OrderCanceledEvent;
+import com.shoestore.Server.events.PromotionChangedEvent;
+import com.shoestore.Server.events.VoucherChangedEvent;
+import com.shoestore.Server.exception.NotFoundException;
+import com.shoestore.Server.repositories.PromotionRepository;
+import com.shoestore.Server.repositories.VoucherRepository;
+import com.shoestore.Server.service.RedemptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Each counter is a Redis hash {@code {limit, used}} plus a sorted set of open reservations
+ * scored by their expiry and a set of the tokens already counted in {@code used}. Every operation is a single Lua script, so the capacity check and the
+ * write happen atomically on the Redis side and concurrent checkouts never take a row lock.
+ * A counter is seeded from MySQL on first use.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedemptionServiceImpl implements RedemptionService {
+    private static final String PENDING_KEY = "redemption:pending";
+    private static final long NOT_LOADED = -1;
+
+    // KEYS: counter, holds, confirmed | ARGV: token, now, expiresAt
+    private static final RedisScript<Long> RESERVE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            if redis.call('SISMEMBER', KEYS[3], ARGV[1]) == 1 then return 1 end
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[2])
+            if redis.call('ZSCORE', KEYS[2], ARGV[1]) then return 1 end
+            local limit = tonumber(redis.call('HGET', KEYS[1], 'limit'))
+            local used = tonumber(redis.call('HGET', KEYS[1], 'used'))
+            if limit >= 0 and used + redis.call('ZCARD', KEYS[2]) >= limit then return 0 end
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: counter, holds, confirmed | ARGV: token
+    private static final RedisScript<Long> CONFIRM = new DefaultRedisScript<>("""
+            if redis.call('ZREM', KEYS[2], ARGV[1]) == 0 then return 0 end
+            if redis.call('SADD', KEYS[3], ARGV[1]) == 0 then return 0 end
+            redis.call('HINCRBY', KEYS[1], 'used', 1)
+            return 1
+            """, Long.class);
+
+    // KEYS: holds | ARGV: token
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            return redis.call('ZREM', KEYS[1], ARGV[1])
+            """, Long.class);
+
+    // KEYS: counter, holds, confirmed | ARGV: token
+    private static final RedisScript<Long> REFUND = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[2], ARGV[1])
+            if redis.call('SREM', KEYS[3], ARGV[1]) == 0 then return 0 end
+            redis.call('HINCRBY', KEYS[1], 'used', -1)
+            return 1
+            """, Long.class);
+
+    // KEYS: counter | ARGV: limit, used
+    private static final RedisScript<Long> SEED = new DefaultRedisScript<>("""
+            redis.call('HSETNX', KEYS[1], 'limit', ARGV[1])
+            redis.call('HSETNX', KEYS[1], 'used', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: counter | ARGV: limit
+    private static final RedisScript<Long> SET_LIMIT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], 'limit', ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final VoucherRepository voucherRepository;
+    private final PromotionRepository promotionRepository;
+
+    @Value("${app.redemption.hold-seconds:900}")
+    private long holdSeconds;
+
+    @Override
+    public boolean reserve(RedemptionType type, int id, String token) {
+        long now = System.currentTimeMillis();
+        List<String> keys = keys(type, id);
+        Object[] args = {token, String.valueOf(now), String.valueOf(now + holdSeconds * 1000)};
+        Long result = redisTemplate.execute(RESERVE, keys, args);
+        if (result != null && result == NOT_LOADED) {
+            seed(type, id);
+            result = redisTemplate.execute(RESERVE, keys, args);
+        }
+        boolean reserved = result != null && result == 1;
+        if (!reserved) {
+            log.info("Usage limit reached for {} ID: {}", type, id);
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean confirm(RedemptionType type, int id, String token) {
+        // Tập pending nằm ở slot khác nên được cập nhật ngoài script (tránh CROSSSLOT trên Redis Cluster)
+        Long result = redisTemplate.execute(CONFIRM, keys(type, id), token);
+        boolean confirmed = result != null && result == 1;
+        if (confirmed) {
+            markPending(List.of(new Counter(type, id)));
+        }
+        return confirmed;
+    }
+
+    @Override
+    public boolean release(RedemptionType type, int id, String token) {
+        Long result = redisTemplate.execute(RELEASE, List.of(holdsKey(type, id)), token);
+        return result != null && result == 1;
+    }
+
+    @Override
+    public boolean refund(RedemptionType type, int id, String token) {
+        Long result = redisTemplate.execute(REFUND, keys(type, id), token);
+        boolean refunded = result != null && result == 1;
+        if (refunded) {
+            markPending(List.of(new Counter(type, id)));
+        }
+        return refunded;
+    }
+
+    @Override
+    public Map<Counter, Long> pollPendingUsage(int max) {
+        Map<Counter, Long> usage = new HashMap<>();
+        List<String> members = redisTemplate.opsForSet().pop(PENDING_KEY, max);
+        if (members == null) {
+            return usage;
+        }
+        for (String member : members) {
+            int separator = member.indexOf(':');
+            Counter counter = new Counter(RedemptionType.valueOf(member.substring(0, separator)),
+                    Integer.parseInt(member.substring(separator + 1)));
+            Object used = redisTemplate.opsForHash().get(counterKey(counter.type(), counter.id()), "used");
+            if (used != null) {
+                usage.put(counter, Long.parseLong(used.toString()));
+            }
+        }
+        return usage;
+    }
+
+    @Override
+    @Transactional
+    public void persistUsage(Map<Counter, Long> usage) {
+        usage.forEach((counter, used) -> {
+            if (counter.type() == RedemptionType.VOUCHER) {
+                voucherRepository.updateUsedCount(counter.id(), used.intValue());
+            } else {
+                promotionRepository.updateUsageCount(counter.id(), used.intValue());
+            }
+        });
+    }
+
+    @Override
+    public void markPending(Collection<Counter> counters) {
+        if (counters.isEmpty()) {
+            return;
+        }
+        redisTemplate.opsForSet().add(PENDING_KEY,
+                counters.stream().map(c -> member(c.type(), c.id())).toArray(String[]::new));
+    }
+
+    // Cập nhật giới hạn cho counter đã nạp khi admin sửa khuyến mãi / voucher
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        for (Integer id : event.promotionIds()) {
+            promotionRepository.findById(id).ifPresent(promotion ->
+                    setLimit(RedemptionType.PROMOTION, id, promotion.getUsageLimit()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoucherChanged(VoucherChangedEvent event) {
+        for (Integer id : event.voucherIds()) {
+            voucherRepository.findById(id).ifPresent(voucher ->
+                    setLimit(RedemptionType.VOUCHER, id, voucher.getMaxUses()));
+        }
+    }
+
+    // Trả lại lượt dùng voucher/khuyến mãi của đơn bị hủy sau khi giao dịch hủy đã commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCanceled(OrderCanceledEvent event) {
+        String token = RedemptionService.orderToken(event.orderId());
+        if (event.voucherId() != null) {
+            refund(RedemptionType.VOUCHER, event.voucherId(), token);
+        }
+        for (Integer promotionId : event.promotionIds()) {
+            refund(RedemptionType.PROMOTION, promotionId, token);
+        }
+    }
+
+    private void setLimit(RedemptionType type, int id, Integer limit) {
+        redisTemplate.execute(SET_LIMIT, List.of(counterKey(type, id)), String.valueOf(limitOf(limit)));
+    }
+
+    private void seed(RedemptionType type, int id) {
+        long limit;
+        long used;
+        if (type == RedemptionType.VOUCHER) {
+            Voucher voucher = voucherRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Voucher not found with ID: " + id));
+            limit = limitOf(voucher.getMaxUses());
+            used = voucher.getUsedCount() != null ? voucher.getUsedCount() : 0;
+        } else {
+            Promotion promotion = promotionRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Promotion not found with ID: " + id));
+            limit = limitOf(promotion.getUsageLimit());
+            used = promotion.getUsageCount() != null ? promotion.getUsageCount() : 0;
+        }
+        redisTemplate.execute(SEED, List.of(counterKey(type, id)), String.valueOf(limit), String.valueOf(used));
+    }
+
+    // -1: không giới hạn
+    private static long limitOf(Integer limit) {
+        return limit != null ? limit : -1;
+    }
+
+    private static String member(RedemptionType type, int id) {
+        return type.name() + ":" + id;
+    }
+
+    // Hash tag giữ counter và tập giữ chỗ trên cùng một slot
+    private static String counterKey(RedemptionType type, int id) {
+        return "redemption:{" + member(type, id) + "}";
+    }
+
+    private static String holdsKey(RedemptionType type, int id) {
+        return counterKey(type, id) + ":holds";
+    }
+
+    private static String confirmedKey(RedemptionType type, int id) {
+        return counterKey(type, id) + ":confirmed";
+    }
+
+    private static List<String> keys(RedemptionType type, int id) {
+        return List.of(counterKey(type, id), holdsKey(type, id), confirmedKey(type, id));
+    }
+}
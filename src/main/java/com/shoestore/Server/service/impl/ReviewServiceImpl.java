@@ -1,15 +1,23 @@
 package com.shoestore.Server.service.impl;
 
 import com.shoestore.Server.dto.request.ReviewDTO;
+import com.shoestore.Server.dto.response.PaginationResponse;
 import com.shoestore.Server.dto.response.ReviewResponse;
 import com.shoestore.Server.entities.*;
+import com.shoestore.Server.events.ProductChangedEvent;
 import com.shoestore.Server.mapper.ReviewMapper;
 import com.shoestore.Server.repositories.*;
 import com.shoestore.Server.service.ProductDetailService;
 import com.shoestore.Server.service.ReviewService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,13 +30,15 @@ public class ReviewServiceImpl implements ReviewService {
     private final OrderDetailRepository orderDetailRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ReviewServiceImpl(ReviewRepository reviewRepository, ReviewMapper reviewMapper, OrderDetailRepository orderDetailRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public ReviewServiceImpl(ReviewRepository reviewRepository, ReviewMapper reviewMapper, OrderDetailRepository orderDetailRepository, ProductRepository productRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.reviewRepository = reviewRepository;
         this.reviewMapper = reviewMapper;
         this.orderDetailRepository = orderDetailRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -49,19 +59,35 @@ public class ReviewServiceImpl implements ReviewService {
         List<Review> reviews = reviewRepository.findReviewsByProduct_ProductID(productId);
         log.info("Found {} reviews for Product ID: {}", reviews.size(), productId);
 
-        return reviews.stream().map(review -> {
-            ReviewResponse response = reviewMapper.toReviewResponse(review);
-            if (review.getOrderDetail() != null && review.getOrderDetail().getProductDetail() != null) {
-                ProductDetail productDetail = review.getOrderDetail().getProductDetail();
-                response.setProductDetailsColor(productDetail.getColor().getColorName());
-                response.setProductDetailsSize(productDetail.getSize().name());
-            }
-            return response;
-        }).collect(Collectors.toList());
+        return reviews.stream().map(this::toReviewResponse).collect(Collectors.toList());
+    }
+
+    @Override
+    public PaginationResponse<ReviewResponse> getReviewsByProductId(int productId, int page, int pageSize) {
+        Pageable pageable = PageRequest.of(page - 1, pageSize, Sort.by(Sort.Direction.DESC, "reviewID"));
+        Page<Review> reviews = reviewRepository.findByProduct_ProductID(productId, pageable);
+        return new PaginationResponse<>(
+                reviews.getContent().stream().map(this::toReviewResponse).toList(),
+                reviews.getTotalElements(),
+                reviews.getTotalPages(),
+                reviews.getNumber() + 1,
+                reviews.getSize()
+        );
+    }
+
+    private ReviewResponse toReviewResponse(Review review) {
+        ReviewResponse response = reviewMapper.toReviewResponse(review);
+        if (review.getOrderDetail() != null && review.getOrderDetail().getProductDetail() != null) {
+            ProductDetail productDetail = review.getOrderDetail().getProductDetail();
+            response.setProductDetailsColor(productDetail.getColor().getColorName());
+            response.setProductDetailsSize(productDetail.getSize().name());
+        }
+        return response;
     }
 
 
     @Override
+    @Transactional
     public ReviewDTO addReview(ReviewDTO reviewDTO) {
         log.info("Adding a new review for Order details ID: {}, Product ID: {}",
                 reviewDTO.getOrderDetail().getOrderDetailID(), reviewDTO.getProduct().getProductID());
@@ -82,6 +108,10 @@ public class ReviewServiceImpl implements ReviewService {
         review.setProduct(product);
         review.setUser(user);
         Review savedReview = reviewRepository.save(review);
+        if (product != null) {
+            productRepository.addRating(product.getProductID(), savedReview.getRating());
+            eventPublisher.publishEvent(ProductChangedEvent.updated(product.getProductID()));
+        }
         log.info("Successfully added review with ID: {}", savedReview.getReviewID());
         return reviewMapper.toDto(review);
     }
@@ -1,11 +1,13 @@
 package com.shoestore.Server.service.impl;
 
+import com.shoestore.Server.cache.CacheNames;
 import com.shoestore.Server.dto.request.SupplierDTO;
 import com.shoestore.Server.entities.Supplier;
 import com.shoestore.Server.mapper.SupplierMapper;
 import com.shoestore.Server.repositories.SupplierRepository;
 import com.shoestore.Server.service.SupplierService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,6 +26,7 @@ public class SupplierServiceImpl implements SupplierService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.SUPPLIER, unless = "#result == null")
     public SupplierDTO getSupplierById(int id) {
         log.info("Fetching supplier with ID: {}", id);
         Supplier supplier = supplierRepository.findBySupplierID(id);
@@ -35,6 +38,7 @@ public class SupplierServiceImpl implements SupplierService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheNames.SUPPLIERS, sync = true)
     public List<SupplierDTO> getAllSuppliers() {
         log.info("Fetching all suppliers from database.");
         List<SupplierDTO> suppliers = supplierRepository.findAll().stream()
@@ -16,11 +16,15 @@ import com.shoestore.Server.repositories.RoleRepository;
 import com.shoestore.Server.repositories.UserRepository;
 import com.shoestore.Server.service.PaginationService;
 import com.shoestore.Server.service.UserService;
+import com.shoestore.Server.specifications.UserSpecification;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -101,6 +105,25 @@ public class UserServiceImpl implements UserService {
         return paginationService.paginate(userResponsesPage);
     }
 
+    @Override
+    public PaginationResponse<UserResponse> getAllUsersScrolled(String cursor, int size) {
+        return scrollUsers(Specification.where(null), cursor, size);
+    }
+
+    @Override
+    public PaginationResponse<UserResponse> getCustomersScrolled(String cursor, int size) {
+        return scrollUsers(UserSpecification.hasRole(RoleType.CUSTOMER), cursor, size);
+    }
+
+    private PaginationResponse<UserResponse> scrollUsers(Specification<User> spec, String cursor, int size) {
+        Sort sort = Sort.by("userID");
+        Window<User> users = userRepository.findBy(spec, query -> query
+                .sortBy(sort)
+                .limit(size)
+                .scroll(paginationService.resolveCursor(cursor, sort)));
+        return paginationService.paginate(users.map(userMapper::toResponse), size);
+    }
+
     @Override
     public PaginationResponse<UserResponse> getUsersByRoleCustomer(int page, int size) {
         Pageable pageable = paginationService.createPageable(page, size);
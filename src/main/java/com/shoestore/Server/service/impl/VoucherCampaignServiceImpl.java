@@ -0,0 +1,210 @@
+package com.shoestore.Server.service.impl;
+
+import com.shoestore.Server.dto.request.VoucherCampaignRequest;
+import com.shoestore.Server.dto.response.VoucherCampaignResponse;
+import com.shoestore.Server.exception.BadRequestException;
+import com.shoestore.Server.exception.NotFoundException;
+import com.shoestore.Server.service.VoucherCampaignService;
+import com.shoestore.Server.utils.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates large voucher drops in the background. Codes already in the table under the same
+ * prefix are loaded into a {@link BloomFilter} together with every code generated so far, so a
+ * fresh random code is accepted only if the filter has definitely not seen it; no per-code
+ * query is needed. Codes are written with JDBC batch inserts, one transaction per batch,
+ * bypassing Hibernate's IDENTITY insert-per-row. Progress is kept in memory per campaign.
+ */
+@Slf4j
+@Service
+public class VoucherCampaignServiceImpl implements VoucherCampaignService {
+    // Bỏ các ký tự dễ nhầm: I, O, 0, 1
+    private static final char[] ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final int MIN_RANDOM_LENGTH = 6;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final Duration RETENTION = Duration.ofDays(1);
+    private static final String INSERT_SQL = "INSERT INTO voucher (code, description, discountValue, discountType, " +
+            "minOrderValue, freeShipping, startDate, endDate, status, maxUses, usedCount, createdAt, updatedAt) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private static final class Progress {
+        final String campaignId;
+        final int requested;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        volatile String status = "RUNNING";
+        volatile int generated;
+        volatile LocalDateTime finishedAt;
+        volatile String message;
+
+        Progress(String campaignId, int requested) {
+            this.campaignId = campaignId;
+            this.requested = requested;
+        }
+
+        VoucherCampaignResponse toResponse() {
+            return new VoucherCampaignResponse(campaignId, status, requested, generated, startedAt, finishedAt, message);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ThreadPoolTaskExecutor campaignExecutor;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Progress> campaigns = new ConcurrentHashMap<>();
+    private final int batchSize;
+
+    public VoucherCampaignServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      @Value("${app.voucher-campaign.batch-size:1000}") int batchSize,
+                                      @Value("${app.voucher-campaign.queue-capacity:4}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        // một luồng: các đợt phát hành chạy lần lượt để không tranh nhau cùng tiền tố mã
+        this.campaignExecutor = new ThreadPoolTaskExecutor();
+        this.campaignExecutor.setCorePoolSize(1);
+        this.campaignExecutor.setMaxPoolSize(1);
+        this.campaignExecutor.setQueueCapacity(queueCapacity);
+        this.campaignExecutor.setThreadNamePrefix("voucher-campaign-");
+        this.campaignExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        campaignExecutor.shutdown();
+    }
+
+    @Override
+    public VoucherCampaignResponse startCampaign(VoucherCampaignRequest request) {
+        String prefix = request.getPrefix() != null ? request.getPrefix() : "";
+        if (request.getCodeLength() - prefix.length() < MIN_RANDOM_LENGTH) {
+            throw new BadRequestException("Code length must leave at least " + MIN_RANDOM_LENGTH + " random characters after the prefix");
+        }
+        if (!request.getEndDate().isAfter(request.getStartDate())) {
+            throw new BadRequestException("End date must be after start date");
+        }
+        campaigns.values().removeIf(p -> p.finishedAt != null && p.finishedAt.isBefore(LocalDateTime.now().minus(RETENTION)));
+
+        Progress progress = new Progress(UUID.randomUUID().toString(), request.getCount());
+        campaigns.put(progress.campaignId, progress);
+        try {
+            campaignExecutor.execute(() -> run(request, prefix, progress));
+        } catch (TaskRejectedException e) {
+            campaigns.remove(progress.campaignId);
+            throw new BadRequestException("Too many voucher campaigns queued, try again later");
+        }
+        log.info("Voucher campaign {} queued: {} codes with prefix '{}'", progress.campaignId, request.getCount(), prefix);
+        return progress.toResponse();
+    }
+
+    @Override
+    public VoucherCampaignResponse getCampaign(String campaignId) {
+        Progress progress = campaigns.get(campaignId);
+        if (progress == null) {
+            throw new NotFoundException("Voucher campaign not found with ID: " + campaignId);
+        }
+        return progress.toResponse();
+    }
+
+    private void run(VoucherCampaignRequest request, String prefix, Progress progress) {
+        try {
+            BloomFilter seen = loadExistingCodes(prefix, request.getCount());
+            int randomLength = request.getCodeLength() - prefix.length();
+            long maxRejections = 10L * request.getCount() + 1000;
+            long rejections = 0;
+            List<String> batch = new ArrayList<>(batchSize);
+
+            while (progress.generated < request.getCount()) {
+                int size = Math.min(batchSize, request.getCount() - progress.generated);
+                for (int attempt = 1; ; attempt++) {
+                    batch.clear();
+                    while (batch.size() < size) {
+                        String code = prefix + randomCode(randomLength);
+                        if (seen.mightContain(code)) {
+                            if (++rejections > maxRejections) {
+                                throw new IllegalStateException("Code space under prefix '" + prefix + "' is exhausted");
+                            }
+                            continue;
+                        }
+                        seen.put(code);
+                        batch.add(code);
+                    }
+                    try {
+                        insert(batch, request);
+                        break;
+                    } catch (DuplicateKeyException e) {
+                        // mã vừa được tạo ở nơi khác sau khi nạp bộ lọc: sinh lại cả lô
+                        if (attempt >= MAX_BATCH_ATTEMPTS) throw e;
+                        log.warn("Voucher campaign {} hit a concurrent duplicate, regenerating batch", progress.campaignId);
+                    }
+                }
+                progress.generated += size;
+                log.debug("Voucher campaign {}: {}/{}", progress.campaignId, progress.generated, request.getCount());
+            }
+            progress.status = "COMPLETED";
+            log.info("Voucher campaign {} completed: {} codes", progress.campaignId, progress.generated);
+        } catch (RuntimeException e) {
+            progress.status = "FAILED";
+            progress.message = e.getMessage();
+            log.error("Voucher campaign {} failed after {} codes", progress.campaignId, progress.generated, e);
+        } finally {
+            progress.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private BloomFilter loadExistingCodes(String prefix, int count) {
+        String pattern = prefix + "%";
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM voucher WHERE code LIKE ?", Long.class, pattern);
+        BloomFilter filter = new BloomFilter((existing != null ? existing : 0) + count, 0.001);
+        jdbcTemplate.query("SELECT code FROM voucher WHERE code LIKE ?", rs -> {
+            filter.put(rs.getString(1));
+        }, pattern);
+        return filter;
+    }
+
+    private void insert(List<String> codes, VoucherCampaignRequest request) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp startDate = Timestamp.valueOf(request.getStartDate());
+        Timestamp endDate = Timestamp.valueOf(request.getEndDate());
+        transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, codes, codes.size(), (ps, code) -> {
+            ps.setString(1, code);
+            ps.setString(2, request.getDescription());
+            ps.setBigDecimal(3, request.getDiscountValue());
+            ps.setString(4, request.getDiscountType());
+            ps.setBigDecimal(5, request.getMinOrderValue());
+            ps.setBoolean(6, request.isFreeShipping());
+            ps.setTimestamp(7, startDate);
+            ps.setTimestamp(8, endDate);
+            ps.setBoolean(9, request.isStatus());
+            ps.setObject(10, request.getMaxUses());
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        }));
+    }
+
+    private String randomCode(int length) {
+        char[] code = new char[length];
+        for (int i = 0; i < length; i++) {
+            code[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(code);
+    }
+}
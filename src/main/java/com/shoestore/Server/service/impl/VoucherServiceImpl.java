@@ -3,13 +3,16 @@ package com.shoestore.Server.service.impl;
 import com.shoestore.Server.dto.request.VoucherDTO;
 import com.shoestore.Server.entities.User;
 import com.shoestore.Server.entities.Voucher;
+import com.shoestore.Server.events.VoucherChangedEvent;
 import com.shoestore.Server.mapper.VoucherMapper;
 import com.shoestore.Server.repositories.UserRepository;
 import com.shoestore.Server.repositories.VoucherRepository;
+import com.shoestore.Server.search.VoucherEligibilityIndex;
 import com.shoestore.Server.service.VoucherService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -25,6 +28,8 @@ public class VoucherServiceImpl implements VoucherService {
     private final VoucherRepository voucherRepository;
     private final VoucherMapper voucherMapper;
     private final UserRepository userRepository;
+    private final VoucherEligibilityIndex voucherEligibilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<VoucherDTO> getAllVouchers() {
@@ -52,6 +57,7 @@ public class VoucherServiceImpl implements VoucherService {
         log.info("Deleting voucher with ID: {}", voucherID);
         if (voucherRepository.existsById(voucherID)) {
             voucherRepository.deleteById(voucherID);
+            eventPublisher.publishEvent(VoucherChangedEvent.of(voucherID));
             log.info("Successfully deleted voucher with ID: {}", voucherID);
         } else {
             log.warn("Cannot delete: Voucher ID {} not found.", voucherID);
@@ -62,13 +68,16 @@ public class VoucherServiceImpl implements VoucherService {
     public List<VoucherDTO> getEligibleVouchers(int userId, BigDecimal orderValue) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
-        log.info("Fetching eligible vouchers for order value: {}", orderValue);
-        List<VoucherDTO> eligibleVouchers = voucherRepository.findByMinOrderValueLessThanEqualAndStatusTrueAndStartDateBeforeAndEndDateAfterAndCustomerGroup(
-                        orderValue, LocalDateTime.now(), LocalDateTime.now(),user.getCustomerGroup())
+        log.debug("Fetching eligible vouchers for order value: {}", orderValue);
+        LocalDateTime now = LocalDateTime.now();
+        List<VoucherDTO> eligibleVouchers = voucherEligibilityIndex.isReady()
+                ? voucherEligibilityIndex.eligible(user.getCustomerGroup(), orderValue, now)
+                : voucherRepository.findByMinOrderValueLessThanEqualAndStatusTrueAndStartDateBeforeAndEndDateAfterAndCustomerGroup(
+                        orderValue, now, now, user.getCustomerGroup())
                 .stream()
                 .map(voucherMapper::toDto)
                 .collect(Collectors.toList());
-        log.info("Found {} eligible vouchers for order value: {}", eligibleVouchers.size(), orderValue);
+        log.debug("Found {} eligible vouchers for order value: {}", eligibleVouchers.size(), orderValue);
         return eligibleVouchers;
     }
 
@@ -79,6 +88,8 @@ public class VoucherServiceImpl implements VoucherService {
                 .collect(Collectors.toList());
         // Validate trùng code nếu muốn
         List<Voucher> saved = voucherRepository.saveAll(vouchers);
+        eventPublisher.publishEvent(new VoucherChangedEvent(
+                saved.stream().map(Voucher::getVoucherID).collect(Collectors.toSet())));
         return saved.stream()
                 .map(voucherMapper::toDto)
                 .collect(Collectors.toList());
@@ -5,6 +5,7 @@ import com.shoestore.Server.entities.ProductDetail;
 import jakarta.persistence.criteria.Join;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
@@ -31,11 +32,11 @@ public class ProductSpecification {
     }
 
     public static Specification<Product> hasMinPrice(Double minPrice) {
-        return (root, query, builder) -> minPrice == null ? null : builder.greaterThanOrEqualTo(root.get("price"), minPrice);
+        return (root, query, builder) -> minPrice == null ? null : builder.greaterThanOrEqualTo(root.get("effectivePrice"), minPrice);
     }
 
     public static Specification<Product> hasMaxPrice(Double maxPrice) {
-        return (root, query, builder) -> maxPrice == null ? null : builder.lessThanOrEqualTo(root.get("price"), maxPrice);
+        return (root, query, builder) -> maxPrice == null ? null : builder.lessThanOrEqualTo(root.get("effectivePrice"), maxPrice);
     }
     public static Specification<Product> hasName(String keyword) {
         return (root, query, builder) -> {
@@ -46,6 +47,11 @@ public class ProductSpecification {
         };
     }
 
+    public static Specification<Product> hasIds(Collection<Integer> productIds) {
+        return (root, query, builder) -> productIds == null ?
+                null : productIds.isEmpty() ? builder.disjunction() : root.get("productID").in(productIds);
+    }
+
     public static Specification<Product> hasStatus(String status) {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("status"), status);
@@ -0,0 +1,13 @@
+package com.shoestore.Server.specifications;
+
+import com.shoestore.Server.entities.User;
+import com.shoestore.Server.enums.RoleType;
+import org.springframework.data.jpa.domain.Specification;
+
+public class UserSpecification {
+
+    public static Specification<User> hasRole(RoleType roleType) {
+        return (root, query, builder) ->
+                roleType == null ? null : builder.equal(root.join("roles").get("roleType"), roleType);
+    }
+}
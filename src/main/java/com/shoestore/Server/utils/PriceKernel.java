@@ -0,0 +1,132 @@
+package com.shoestore.Server.utils;
+
+import com.shoestore.Server.enums.PromotionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Promotion price arithmetic on whole đồng held in {@code long}. Every price path goes through
+ * here, so listing, cart and checkout agree to the đồng.
+ * <p>
+ * Rounding rules: prices and fixed amounts are rounded HALF_UP to whole đồng on the way in;
+ * percentages are kept in basis points (12.5% = 1250) and capped at 100%; a percentage discount
+ * is {@code price * bp / 10000} rounded HALF_UP; fixed discounts never exceed the price; every
+ * discount is then capped by the promotion's max discount, if any. BUYX/GIFT do not change
+ * the unit price. The calculation methods allocate nothing.
+ */
+public final class PriceKernel {
+    public static final long NO_CAP = -1;
+    private static final long FULL_PERCENT_BP = 10_000;
+
+    /**
+     * A promotion already converted to kernel units.
+     */
+    public interface Discount {
+        PromotionType type();
+
+        /**
+         * Basis points for PERCENTAGE, đồng for FIXED.
+         */
+        long discountUnits();
+
+        /**
+         * Cap on the discount in đồng, or {@link #NO_CAP}.
+         */
+        long maxDiscount();
+
+        boolean stackable();
+    }
+
+    private PriceKernel() {
+    }
+
+    public static long toDong(double amount) {
+        return Math.round(amount);
+    }
+
+    public static long toDong(BigDecimal amount) {
+        return amount.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static long units(PromotionType type, BigDecimal discountValue) {
+        if (type == null || discountValue == null) {
+            return 0;
+        }
+        return type == PromotionType.PERCENTAGE
+                ? discountValue.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact()
+                : toDong(discountValue);
+    }
+
+    public static long cap(BigDecimal maxDiscount) {
+        return maxDiscount != null ? toDong(maxDiscount) : NO_CAP;
+    }
+
+    public static long discount(long price, PromotionType type, long units, long maxDiscount) {
+        if (price <= 0 || units <= 0 || type == null) {
+            return 0;
+        }
+        long discount = switch (type) {
+            case PERCENTAGE -> (price * Math.min(units, FULL_PERCENT_BP) + FULL_PERCENT_BP / 2) / FULL_PERCENT_BP;
+            case FIXED -> Math.min(units, price);
+            case BUYX, GIFT -> 0;
+        };
+        return maxDiscount >= 0 ? Math.min(discount, maxDiscount) : discount;
+    }
+
+    public static long discount(long price, Discount promotion) {
+        return discount(price, promotion.type(), promotion.discountUnits(), promotion.maxDiscount());
+    }
+
+    public static long apply(long price, PromotionType type, long units, long maxDiscount) {
+        return price - discount(price, type, units, maxDiscount);
+    }
+
+    /**
+     * Final price under all applicable promotions. If any of them is not stackable only the
+     * single largest discount on the original price is taken; otherwise they are applied one
+     * after another, largest discount on the original price first, each on the running price.
+     */
+    public static long finalPrice(long price, List<? extends Discount> applied) {
+        int n = applied.size();
+        if (n == 0 || price <= 0) {
+            return Math.max(price, 0);
+        }
+        boolean stackable = true;
+        for (int i = 0; i < n; i++) {
+            stackable &= applied.get(i).stackable();
+        }
+        if (!stackable) {
+            long best = 0;
+            for (int i = 0; i < n; i++) {
+                best = Math.max(best, discount(price, applied.get(i)));
+            }
+            return price - best;
+        }
+
+        // Chọn lần lượt theo (mức giảm trên giá gốc giảm dần, vị trí tăng dần) mà không cần sắp xếp/cấp phát
+        long current = price;
+        long previousDiscount = Long.MAX_VALUE;
+        int previousIndex = -1;
+        for (int step = 0; step < n; step++) {
+            int next = -1;
+            long nextDiscount = -1;
+            for (int i = 0; i < n; i++) {
+                long d = discount(price, applied.get(i));
+                boolean after = d < previousDiscount || (d == previousDiscount && i > previousIndex);
+                if (after && d > nextDiscount) {
+                    next = i;
+                    nextDiscount = d;
+                }
+            }
+            current -= discount(current, applied.get(next));
+            if (current <= 0) {
+                return 0;
+            }
+            previousDiscount = nextDiscount;
+            previousIndex = next;
+        }
+        return current;
+    }
+}
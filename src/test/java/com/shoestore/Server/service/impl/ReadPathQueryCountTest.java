@@ -0,0 +1,271 @@
+package com.shoestore.Server.service.impl;
+
+import com.shoestore.Server.config.JpaConfig;
+import com.shoestore.Server.dto.request.CartItemDTO;
+import com.shoestore.Server.dto.request.ProductDetailDTO;
+import com.shoestore.Server.entities.*;
+import com.shoestore.Server.enums.Color;
+import com.shoestore.Server.enums.OrderStatus;
+import com.shoestore.Server.enums.PaymentStatus;
+import com.shoestore.Server.enums.ProductStatus;
+import com.shoestore.Server.enums.Size;
+import com.shoestore.Server.mapper.*;
+import com.shoestore.Server.search.*;
+import com.shoestore.Server.service.CartItemService;
+import com.shoestore.Server.service.OrderService;
+import com.shoestore.Server.service.ProductService;
+import com.shoestore.Server.service.PromotionService;
+import com.shoestore.Server.service.RedemptionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each read path must issue the same number of statements whatever the number of rows it
+ * returns: associations come from entity graphs or batch fetching, never one select per row.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount;MODE=MySQL;NON_KEYWORDS=USER,VALUE,YEAR,MONTH",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaConfig.class, ProductServiceImpl.class, OrderServiceImpl.class, OrderDetailServiceImpl.class,
+        PaginationServiceImpl.class, CatalogSnapshotStore.class, ProductMapperImpl.class, ProductDetailMapperImpl.class,
+        OrderMapperImpl.class, OrderDetailMapperImpl.class, OrderStatusHistoryMapperImpl.class, PaymentMapperImpl.class,
+        CartItemServiceImpl.class, CartItemMapperImpl.class, CartMapperImpl.class})
+class ReadPathQueryCountTest {
+
+    @MockBean
+    private PromotionService promotionService;
+    @MockBean
+    private ProductSearchIndex productSearchIndex;
+    @MockBean
+    private ProductFacetIndex productFacetIndex;
+    @MockBean
+    private RelatedProductsGraph relatedProductsGraph;
+    @MockBean
+    private FeaturedProductLists featuredProductLists;
+    @MockBean
+    private SuggestionIndex suggestionIndex;
+    @MockBean
+    private ProductPriceColumn productPriceColumn;
+    @MockBean
+    private RedemptionService redemptionService;
+    @MockBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CartItemService cartItemService;
+
+    private Brand brand;
+    private Category category;
+    private Supplier supplier;
+    private User user;
+    private final List<Integer> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        brand = new Brand();
+        brand.setName("Brand");
+        em.persist(brand);
+        category = new Category();
+        category.setName("Category");
+        em.persist(category);
+        supplier = new Supplier();
+        supplier.setSupplierName("Supplier");
+        em.persist(supplier);
+        user = new User();
+        user.setName("Customer");
+        user.setEmail("customer@example.com");
+        em.persist(user);
+    }
+
+    @Test
+    void getFilteredProductsIsBounded() {
+        when(productSearchIndex.search(any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> new ProductSearchHits(List.copyOf(productIds), productIds.size()));
+
+        addProducts(2);
+        long few = countStatements(() -> productService.getFilteredProducts(null, null, null, null, null, null, null, null, 1, 20));
+        addProducts(8);
+        long many = countStatements(() -> productService.getFilteredProducts(null, null, null, null, null, null, null, null, 1, 20));
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void searchProductsIsBounded() {
+        addProducts(2);
+        long few = countStatements(() -> productService.searchProducts(null, null, null, null, null, null, 1, 20));
+        addProducts(8);
+        long many = countStatements(() -> productService.searchProducts(null, null, null, null, null, null, 1, 20));
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void filterOrdersIsBounded() {
+        addProducts(1);
+        addOrders(2);
+        long few = countStatements(() -> orderService.filterOrders(null, null, null, null, 1, 20, null, null));
+        addOrders(8);
+        long many = countStatements(() -> orderService.filterOrders(null, null, null, null, 1, 20, null, null));
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void getOrderByUserIsBounded() {
+        addProducts(1);
+        addOrders(2);
+        long few = countStatements(() -> orderService.getOrderByByUser(user.getUserID()));
+        addOrders(8);
+        long many = countStatements(() -> orderService.getOrderByByUser(user.getUserID()));
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cartPageIsBounded() {
+        // Giỏ đã có trong Redis: chỉ phần dữ liệu sản phẩm của trang được đọc từ DB
+        Map<Object, Object> cart = new HashMap<>();
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(anyString())).thenAnswer(invocation -> new HashMap<>(cart));
+
+        addProducts(1);
+        addCartItems(cart, 2);
+        long few = countStatements(() -> cartItemService.getCartItemsByCartId(user.getUserID(), 1, 20));
+        addProducts(7);
+        addCartItems(cart, 8);
+        long many = countStatements(() -> cartItemService.getCartItemsByCartId(user.getUserID(), 1, 20));
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(4);
+    }
+
+    private long countStatements(Runnable readPath) {
+        em.flush();
+        em.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        readPath.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addProducts(int count) {
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setProductName("Runner " + productIds.size());
+            product.setDescription("Running shoe");
+            product.setPrice(100);
+            product.setStatus(ProductStatus.AVAILABLE);
+            product.setBrand(brand);
+            product.setCategory(category);
+            product.setSupplier(supplier);
+            em.persist(product);
+            for (Size size : List.of(Size.SIZE_36, Size.SIZE_37)) {
+                ProductDetail detail = new ProductDetail();
+                detail.setProduct(product);
+                detail.setColor(Color.RED);
+                detail.setSize(size);
+                detail.setStockQuantity(10);
+                detail.setStatus(ProductStatus.AVAILABLE);
+                em.persist(detail);
+            }
+            productIds.add(product.getProductID());
+        }
+    }
+
+    // Mỗi dòng giỏ là một biến thể chưa có trong giỏ, lưu như cách CartItemServiceImpl ghi vào Redis
+    private void addCartItems(Map<Object, Object> cart, int count) {
+        List<ProductDetail> details = em.getEntityManager()
+                .createQuery("SELECT pd FROM ProductDetail pd ORDER BY pd.productDetailID", ProductDetail.class)
+                .setFirstResult(cart.size() / 2)
+                .setMaxResults(count)
+                .getResultList();
+        for (ProductDetail detail : details) {
+            ProductDetailDTO productDetail = new ProductDetailDTO();
+            productDetail.setProductDetailID(detail.getProductDetailID());
+            CartItemDTO item = new CartItemDTO();
+            item.setCartItemID(cart.size() / 2 + 1);
+            item.setProductDetail(productDetail);
+            item.setQuantity(1);
+            cart.put(String.valueOf(detail.getProductDetailID()), item);
+            cart.put(detail.getProductDetailID() + ":qty", 1);
+        }
+    }
+
+    private void addOrders(int count) {
+        ProductDetail detail = em.getEntityManager()
+                .createQuery("SELECT pd FROM ProductDetail pd", ProductDetail.class)
+                .setMaxResults(1)
+                .getSingleResult();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderDate(LocalDate.now());
+            order.setStatus(OrderStatus.CANCELED);
+            order.setShippingAddress("1 Street");
+            order.setTotal(200);
+            em.persist(order);
+
+            for (int line = 0; line < 2; line++) {
+                OrderDetail orderDetail = new OrderDetail();
+                orderDetail.setOrder(order);
+                orderDetail.setProductDetail(detail);
+                orderDetail.setQuantity(1);
+                orderDetail.setPrice(100);
+                em.persist(orderDetail);
+            }
+
+            OrderStatusHistory history = new OrderStatusHistory();
+            history.setOrder(order);
+            history.setStatus(OrderStatus.CANCELED);
+            history.setCancelReason("Changed mind");
+            em.persist(history);
+
+            Payment payment = new Payment();
+            payment.setOrder(order);
+            payment.setPaymentDate(LocalDate.now());
+            payment.setStatus(PaymentStatus.values()[0]);
+            em.persist(payment);
+        }
+    }
+}
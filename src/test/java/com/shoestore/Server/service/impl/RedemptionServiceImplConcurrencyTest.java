@@ -0,0 +1,260 @@
+package com.shoestore.Server.service.impl;
+
+import com.shoestore.Server.entities.Promotion;
+import com.shoestore.Server.entities.Voucher;
+import com.shoestore.Server.enums.RedemptionType;
+import com.shoestore.Server.repositories.PromotionRepository;
+import com.shoestore.Server.repositories.VoucherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against the Redis at {@code REDIS_HOST:REDIS_PORT} (default localhost:6379) and is
+ * skipped when none is reachable.
+ */
+class RedemptionServiceImplConcurrencyTest {
+    private static final int THREADS = 64;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private VoucherRepository voucherRepository;
+    private PromotionRepository promotionRepository;
+    private RedemptionServiceImpl redemptionService;
+    private int voucherId;
+    private int promotionId;
+
+    @BeforeEach
+    void setUp() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+        boolean reachable;
+        try (var connection = connectionFactory.getConnection()) {
+            reachable = "PONG".equals(connection.ping());
+        } catch (RuntimeException e) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "Redis is not reachable at " + host + ":" + port);
+
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        voucherRepository = mock(VoucherRepository.class);
+        promotionRepository = mock(PromotionRepository.class);
+        redemptionService = new RedemptionServiceImpl(redisTemplate, voucherRepository, promotionRepository);
+        ReflectionTestUtils.setField(redemptionService, "holdSeconds", 60L);
+        voucherId = ThreadLocalRandom.current().nextInt(1_000_000, Integer.MAX_VALUE);
+        promotionId = ThreadLocalRandom.current().nextInt(1_000_000, Integer.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redisTemplate != null) {
+            String counterKey = "redemption:{VOUCHER:" + voucherId + "}";
+            String promotionKey = "redemption:{PROMOTION:" + promotionId + "}";
+            redisTemplate.delete(List.of(counterKey, counterKey + ":holds", counterKey + ":confirmed",
+                    promotionKey, promotionKey + ":holds", promotionKey + ":confirmed"));
+            redisTemplate.opsForSet().remove("redemption:pending", "VOUCHER:" + voucherId, "PROMOTION:" + promotionId);
+        }
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void concurrentRedemptionsNeverExceedLimit() throws Exception {
+        givenVoucher(1000, 0);
+        AtomicInteger confirmed = new AtomicInteger();
+
+        runConcurrently(5000, i -> {
+            String token = "order:" + i;
+            if (redemptionService.reserve(RedemptionType.VOUCHER, voucherId, token)
+                    && redemptionService.confirm(RedemptionType.VOUCHER, voucherId, token)) {
+                confirmed.incrementAndGet();
+            }
+        });
+
+        assertThat(confirmed.get()).isEqualTo(1000);
+        assertThat(used()).isEqualTo(1000);
+        assertThat(openHolds()).isZero();
+        assertThat(redisTemplate.opsForSet().isMember("redemption:pending", "VOUCHER:" + voucherId)).isTrue();
+    }
+
+    @Test
+    void concurrentPromotionRedemptionsNeverExceedLimit() throws Exception {
+        Promotion promotion = new Promotion();
+        promotion.setPromotionID(promotionId);
+        promotion.setUsageLimit(500);
+        promotion.setUsageCount(100);
+        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(promotion));
+        AtomicInteger confirmed = new AtomicInteger();
+
+        runConcurrently(3000, i -> {
+            String token = "order:" + i;
+            if (!redemptionService.reserve(RedemptionType.PROMOTION, promotionId, token)) {
+                return;
+            }
+            // một phần đơn lưu thất bại và trả lại lượt dùng
+            if (i % 3 == 0) {
+                redemptionService.release(RedemptionType.PROMOTION, promotionId, token);
+            } else if (redemptionService.confirm(RedemptionType.PROMOTION, promotionId, token)) {
+                confirmed.incrementAndGet();
+            }
+        });
+
+        String counterKey = "redemption:{PROMOTION:" + promotionId + "}";
+        Object used = redisTemplate.opsForHash().get(counterKey, "used");
+        assertThat(confirmed.get()).isPositive().isLessThanOrEqualTo(400);
+        assertThat(used).isEqualTo(String.valueOf(100 + confirmed.get()));
+        assertThat(redisTemplate.opsForZSet().zCard(counterKey + ":holds")).isZero();
+        assertThat(redisTemplate.opsForSet().isMember("redemption:pending", "PROMOTION:" + promotionId)).isTrue();
+    }
+
+    @Test
+    void existingUsageCountsAgainstLimit() throws Exception {
+        givenVoucher(300, 250);
+        AtomicInteger confirmed = new AtomicInteger();
+
+        runConcurrently(2000, i -> {
+            String token = "order:" + i;
+            if (redemptionService.reserve(RedemptionType.VOUCHER, voucherId, token)
+                    && redemptionService.confirm(RedemptionType.VOUCHER, voucherId, token)) {
+                confirmed.incrementAndGet();
+            }
+        });
+
+        assertThat(confirmed.get()).isEqualTo(50);
+        assertThat(used()).isEqualTo(300);
+    }
+
+    @Test
+    void releasedReservationsReturnCapacity() throws Exception {
+        givenVoucher(200, 0);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger confirmed = new AtomicInteger();
+
+        runConcurrently(4000, i -> {
+            String token = "order:" + i;
+            if (!redemptionService.reserve(RedemptionType.VOUCHER, voucherId, token)) {
+                return;
+            }
+            reserved.incrementAndGet();
+            // thanh toán thất bại ở một nửa số đơn
+            if (i % 2 == 0) {
+                if (redemptionService.release(RedemptionType.VOUCHER, voucherId, token)) released.incrementAndGet();
+            } else if (redemptionService.confirm(RedemptionType.VOUCHER, voucherId, token)) {
+                confirmed.incrementAndGet();
+            }
+        });
+
+        assertThat(confirmed.get()).isLessThanOrEqualTo(200);
+        assertThat(used()).isEqualTo(confirmed.get());
+        assertThat(reserved.get()).isEqualTo(released.get() + confirmed.get());
+        assertThat(openHolds()).isZero();
+    }
+
+    @Test
+    void releasingUnknownTokenIsNoop() {
+        givenVoucher(1, 0);
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "a")).isTrue();
+        assertThat(redemptionService.release(RedemptionType.VOUCHER, voucherId, "b")).isFalse();
+        assertThat(redemptionService.confirm(RedemptionType.VOUCHER, voucherId, "b")).isFalse();
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "c")).isFalse();
+        assertThat(redemptionService.release(RedemptionType.VOUCHER, voucherId, "a")).isTrue();
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "c")).isTrue();
+    }
+
+    @Test
+    void concurrentLinesOfOneOrderCountOnce() throws Exception {
+        givenVoucher(10, 0);
+        AtomicInteger confirmed = new AtomicInteger();
+
+        // nhiều dòng của cùng một đơn dùng chung token, kể cả dòng đến sau khi đã xác nhận
+        runConcurrently(500, i -> {
+            String token = "order:" + (i % 5);
+            if (redemptionService.reserve(RedemptionType.VOUCHER, voucherId, token)
+                    && redemptionService.confirm(RedemptionType.VOUCHER, voucherId, token)) {
+                confirmed.incrementAndGet();
+            }
+        });
+
+        assertThat(confirmed.get()).isEqualTo(5);
+        assertThat(used()).isEqualTo(5);
+        assertThat(openHolds()).isZero();
+    }
+
+    @Test
+    void refundGivesBackConfirmedUseOnce() {
+        givenVoucher(1, 0);
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "order:1")).isTrue();
+        assertThat(redemptionService.confirm(RedemptionType.VOUCHER, voucherId, "order:1")).isTrue();
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "order:2")).isFalse();
+
+        assertThat(redemptionService.refund(RedemptionType.VOUCHER, voucherId, "order:1")).isTrue();
+        assertThat(redemptionService.refund(RedemptionType.VOUCHER, voucherId, "order:1")).isFalse();
+        assertThat(redemptionService.refund(RedemptionType.VOUCHER, voucherId, "order:3")).isFalse();
+        assertThat(used()).isZero();
+        assertThat(redemptionService.reserve(RedemptionType.VOUCHER, voucherId, "order:2")).isTrue();
+    }
+
+    private void givenVoucher(int maxUses, int usedCount) {
+        Voucher voucher = new Voucher();
+        voucher.setVoucherID(voucherId);
+        voucher.setMaxUses(maxUses);
+        voucher.setUsedCount(usedCount);
+        when(voucherRepository.findById(voucherId)).thenReturn(Optional.of(voucher));
+    }
+
+    private void runConcurrently(int attempts, IntConsumer attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(attempts);
+        try {
+            for (int i = 0; i < attempts; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    attempt.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long used() {
+        Object used = redisTemplate.opsForHash().get("redemption:{VOUCHER:" + voucherId + "}", "used");
+        return used == null ? 0 : Long.parseLong(used.toString());
+    }
+
+    private long openHolds() {
+        Long holds = redisTemplate.opsForZSet().zCard("redemption:{VOUCHER:" + voucherId + "}:holds");
+        return holds == null ? 0 : holds;
+    }
+}
@@ -0,0 +1,67 @@
+package com.shoestore.Server.utils;
+
+import com.shoestore.Server.enums.PromotionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The BigDecimal promotion pricing that {@link PriceKernel} replaced, kept verbatim as the
+ * oracle for {@link PriceKernelTest} and the baseline for {@link PriceKernelBenchmark}.
+ */
+final class LegacyPricing {
+
+    record Promo(PromotionType type, BigDecimal discountValue, long discountUnits, long maxDiscount,
+                 boolean stackable) implements PriceKernel.Discount {
+
+        static Promo of(PromotionType type, BigDecimal discountValue, boolean stackable) {
+            return new Promo(type, discountValue, PriceKernel.units(type, discountValue), PriceKernel.NO_CAP, stackable);
+        }
+    }
+
+    private LegacyPricing() {
+    }
+
+    static BigDecimal finalPrice(double price, List<Promo> appliedPromotions) {
+        BigDecimal originalPrice = BigDecimal.valueOf(price);
+        BigDecimal finalPrice = originalPrice;
+        if (appliedPromotions.isEmpty()) {
+            return finalPrice.setScale(2, RoundingMode.HALF_UP);
+        }
+        boolean hasNonStackable = appliedPromotions.stream().anyMatch(promo -> !promo.stackable());
+        if (hasNonStackable) {
+            Promo best = appliedPromotions.stream()
+                    .max(Comparator.comparing(promo -> discount(promo, originalPrice)))
+                    .orElse(null);
+            finalPrice = finalPrice.subtract(discount(best, originalPrice));
+        } else {
+            final BigDecimal priceForSort = finalPrice;
+            List<Promo> sorted = appliedPromotions.stream()
+                    .sorted((p1, p2) -> discount(p2, priceForSort).compareTo(discount(p1, priceForSort)))
+                    .collect(Collectors.toList());
+            for (Promo promo : sorted) {
+                finalPrice = finalPrice.subtract(discount(promo, finalPrice));
+                if (finalPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                    finalPrice = BigDecimal.ZERO;
+                    break;
+                }
+            }
+        }
+        return finalPrice.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal discount(Promo promo, BigDecimal currentPrice) {
+        String type = promo.type().name();
+        if ("PERCENTAGE".equalsIgnoreCase(type)) {
+            BigDecimal rate = promo.discountValue().min(BigDecimal.valueOf(100))
+                    .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+            return currentPrice.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+        } else if ("FIXED".equalsIgnoreCase(type)) {
+            return promo.discountValue().min(currentPrice).setScale(2, RoundingMode.HALF_UP);
+        }
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,77 @@
+package com.shoestore.Server.utils;
+
+import com.shoestore.Server.enums.PromotionType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.shoestore.Server.utils.LegacyPricing.Promo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Final price under 0-3 applicable promotions: {@link PriceKernel} against the previous
+ * BigDecimal implementation in {@link LegacyPricing}. Run with
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.shoestore.Server.utils.PriceKernelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceKernelBenchmark {
+    private static final int CASES = 1024;
+
+    private final double[] prices = new double[CASES];
+    private final List<List<Promo>> promotions = new ArrayList<>(CASES);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int c = 0; c < CASES; c++) {
+            prices[c] = (random.nextInt(5000) + 1) * 1000.0;
+            boolean stackable = random.nextBoolean();
+            List<Promo> applied = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                PromotionType type = random.nextBoolean() ? PromotionType.PERCENTAGE : PromotionType.FIXED;
+                BigDecimal value = type == PromotionType.PERCENTAGE
+                        ? BigDecimal.valueOf(random.nextInt(1000), 1)
+                        : BigDecimal.valueOf(random.nextInt(500) * 1000L);
+                applied.add(Promo.of(type, value, stackable));
+            }
+            promotions.add(applied);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CASES)
+    public void bigDecimal(Blackhole blackhole) {
+        for (int c = 0; c < CASES; c++) {
+            blackhole.consume(LegacyPricing.finalPrice(prices[c], promotions.get(c)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CASES)
+    public void kernel(Blackhole blackhole) {
+        for (int c = 0; c < CASES; c++) {
+            blackhole.consume(PriceKernel.finalPrice(PriceKernel.toDong(prices[c]), promotions.get(c)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PriceKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
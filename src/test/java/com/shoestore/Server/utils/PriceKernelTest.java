@@ -0,0 +1,113 @@
+package com.shoestore.Server.utils;
+
+import com.shoestore.Server.enums.PromotionType;
+import com.shoestore.Server.utils.LegacyPricing.Promo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceKernelTest {
+
+    @Test
+    void percentageIsRoundedHalfUpToWholeDong() {
+        // 999 * 12.5% = 124.875
+        assertThat(PriceKernel.discount(999, PromotionType.PERCENTAGE, 1250, PriceKernel.NO_CAP)).isEqualTo(125);
+        // 1 * 50% = 0.5
+        assertThat(PriceKernel.discount(1, PromotionType.PERCENTAGE, 5000, PriceKernel.NO_CAP)).isEqualTo(1);
+        // 999 * 12.4% = 123.876
+        assertThat(PriceKernel.discount(999, PromotionType.PERCENTAGE, 1240, PriceKernel.NO_CAP)).isEqualTo(124);
+        assertThat(PriceKernel.units(PromotionType.PERCENTAGE, new BigDecimal("12.345"))).isEqualTo(1235);
+    }
+
+    @Test
+    void percentageIsCappedAtHundredPercent() {
+        assertThat(PriceKernel.discount(80_000, PromotionType.PERCENTAGE, 15_000, PriceKernel.NO_CAP)).isEqualTo(80_000);
+    }
+
+    @Test
+    void fixedDiscountNeverExceedsPrice() {
+        assertThat(PriceKernel.discount(50_000, PromotionType.FIXED, 80_000, PriceKernel.NO_CAP)).isEqualTo(50_000);
+        assertThat(PriceKernel.finalPrice(50_000, List.of(promo(PromotionType.FIXED, "80000", true)))).isZero();
+    }
+
+    @Test
+    void maxDiscountCapsEveryType() {
+        assertThat(PriceKernel.discount(1_000_000, PromotionType.PERCENTAGE, 5000, 100_000)).isEqualTo(100_000);
+        assertThat(PriceKernel.discount(1_000_000, PromotionType.FIXED, 300_000, 100_000)).isEqualTo(100_000);
+        assertThat(PriceKernel.discount(100_000, PromotionType.PERCENTAGE, 5000, 100_000)).isEqualTo(50_000);
+        assertThat(PriceKernel.cap(null)).isEqualTo(PriceKernel.NO_CAP);
+    }
+
+    @Test
+    void buyXAndGiftDoNotChangeUnitPrice() {
+        assertThat(PriceKernel.discount(100_000, PromotionType.BUYX, 5000, PriceKernel.NO_CAP)).isZero();
+        assertThat(PriceKernel.discount(100_000, PromotionType.GIFT, 5000, PriceKernel.NO_CAP)).isZero();
+    }
+
+    @Test
+    void nonStackableTakesOnlyTheLargestDiscount() {
+        List<Promo> applied = List.of(
+                promo(PromotionType.PERCENTAGE, "10", true),
+                promo(PromotionType.FIXED, "30000", false),
+                promo(PromotionType.PERCENTAGE, "5", true));
+
+        // 10% = 20.000, cố định 30.000, 5% = 10.000: chỉ lấy 30.000
+        assertThat(PriceKernel.finalPrice(200_000, applied)).isEqualTo(170_000);
+    }
+
+    @Test
+    void stackableAppliesLargestOriginalDiscountFirst() {
+        List<Promo> applied = List.of(
+                promo(PromotionType.PERCENTAGE, "10", true),
+                promo(PromotionType.FIXED, "50000", true));
+
+        // 100.000 - 50.000 = 50.000, rồi -10% = 45.000 (ngược thứ tự sẽ là 40.000)
+        assertThat(PriceKernel.finalPrice(100_000, applied)).isEqualTo(45_000);
+    }
+
+    @Test
+    void stackableStopsAtZero() {
+        List<Promo> applied = List.of(
+                promo(PromotionType.FIXED, "60000", true),
+                promo(PromotionType.FIXED, "70000", true));
+
+        assertThat(PriceKernel.finalPrice(100_000, applied)).isZero();
+    }
+
+    @Test
+    void noPromotionKeepsPrice() {
+        assertThat(PriceKernel.finalPrice(123_000, List.of())).isEqualTo(123_000);
+    }
+
+    @Test
+    void matchesPreviousBigDecimalImplementationWithinOneDong() {
+        Random random = new Random(20241017L);
+        for (int c = 0; c < 20_000; c++) {
+            double price = random.nextInt(5_000_000) + 1;
+            List<Promo> applied = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                PromotionType type = random.nextBoolean() ? PromotionType.PERCENTAGE : PromotionType.FIXED;
+                BigDecimal value = type == PromotionType.PERCENTAGE
+                        ? BigDecimal.valueOf(random.nextInt(1001), 1)
+                        : BigDecimal.valueOf(random.nextInt(500) * 1000L);
+                // mỗi khuyến mãi tự chọn stackable nên có cả danh sách trộn lẫn
+                applied.add(Promo.of(type, value, random.nextBoolean()));
+            }
+
+            long expected = PriceKernel.toDong(LegacyPricing.finalPrice(price, applied));
+            long actual = PriceKernel.finalPrice(PriceKernel.toDong(price), applied);
+            assertThat(Math.abs(actual - expected))
+                    .as("price %s, promotions %s", price, applied)
+                    .isLessThanOrEqualTo(1);
+        }
+    }
+
+    private static Promo promo(PromotionType type, String value, boolean stackable) {
+        return Promo.of(type, new BigDecimal(value), stackable);
+    }
+}